@@ -0,0 +1,51 @@
+package com.bookservice.benchmark;
+
+import com.bookservice.BookServiceApplication;
+import com.bookservice.dto.BatchItemResultDTO;
+import com.bookservice.dto.BatchResultDTO;
+import com.bookservice.service.BooksBatchService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Starts the Book Service against a private in-memory H2 database and seeds it
+ * with deterministic books
+ *
+ * @author NIHARIKA GADDE
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType) {
+        return new SpringApplicationBuilder(BookServiceApplication.class)
+                .web(webApplicationType)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "books.ratelimit.enabled=false",
+                        "books.concurrency.enabled=false",
+                        "books.warmup.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    /**
+     * Inserts the given number of books and returns their ids
+     */
+    static List<Long> seed(ConfigurableApplicationContext context, int rows) {
+        BatchResultDTO result = context.getBean(BooksBatchService.class)
+                .saveAll(BenchmarkData.bookDTOs(rows).iterator());
+        return result.getItems().stream()
+                .filter(item -> BatchItemResultDTO.Status.CREATED == item.getStatus())
+                .map(BatchItemResultDTO::getId)
+                .collect(toList());
+    }
+}
@@ -0,0 +1,54 @@
+package com.bookservice.benchmark;
+
+import com.bookservice.dto.BookDTO;
+import com.bookservice.model.Book;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic sample data shared by the benchmarks
+ *
+ * @author NIHARIKA GADDE
+ */
+final class BenchmarkData {
+
+    private static final String[] GENRES = {"fiction", "history", "science", "poetry", "travel", "children"};
+
+    private BenchmarkData() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static BookDTO bookDTO(long id) {
+        return BookDTO.builder()
+                .id(id)
+                .name("Book " + id)
+                .author("Author " + (id % 1000))
+                .genre(GENRES[(int) (id % GENRES.length)])
+                .description("Description of the book number " + id)
+                .price(5.0 + (id % 100))
+                .publishedYear(1950 + (int) (id % 70))
+                .build();
+    }
+
+    static Book book(long id) {
+        BookDTO bookDTO = bookDTO(id);
+        return Book.builder()
+                .id(bookDTO.getId())
+                .name(bookDTO.getName())
+                .author(bookDTO.getAuthor())
+                .genre(bookDTO.getGenre())
+                .description(bookDTO.getDescription())
+                .price(bookDTO.getPrice())
+                .publishedYear(bookDTO.getPublishedYear())
+                .build();
+    }
+
+    static List<BookDTO> bookDTOs(int size) {
+        List<BookDTO> books = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            books.add(bookDTO(id));
+        }
+        return books;
+    }
+}
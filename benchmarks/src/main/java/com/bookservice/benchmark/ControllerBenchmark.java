@@ -0,0 +1,96 @@
+package com.bookservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Benchmarks of the full request path through the BooksController, including
+ * argument resolution, the service and the JSON serialization
+ *
+ * @author NIHARIKA GADDE
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ControllerBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private List<Long> ids;
+
+    @Setup
+    public void setUp() {
+        this.context = BenchmarkApplication.start(WebApplicationType.SERVLET);
+        this.mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) this.context).build();
+        this.ids = BenchmarkApplication.seed(this.context, this.rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public byte[] getAllBooks() throws Exception {
+        return perform(get("/books").param("limit", String.valueOf(this.pageSize)));
+    }
+
+    @Benchmark
+    public byte[] getBook() throws Exception {
+        return perform(get("/books/{book_id}", randomId()));
+    }
+
+    @Benchmark
+    public byte[] getAllBooksFromIds() throws Exception {
+        StringBuilder bookIds = new StringBuilder();
+        for (int i = 0; i < this.pageSize; i++) {
+            bookIds.append(i == 0 ? "" : ",").append(randomId());
+        }
+        return perform(get("/books/select/" + bookIds));
+    }
+
+    private byte[] perform(RequestBuilder request) throws Exception {
+        MvcResult result = this.mockMvc.perform(request).andReturn();
+        while (result.getRequest().isAsyncStarted()) {
+            result = this.mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        return result.getResponse().getContentAsByteArray();
+    }
+
+    private Long randomId() {
+        return this.ids.get(ThreadLocalRandom.current().nextInt(this.ids.size()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.bookservice.benchmark;
+
+import com.bookservice.dto.BookDTO;
+import com.bookservice.model.Book;
+import com.bookservice.util.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the entity/DTO mapping done on every read and write
+ *
+ * @author NIHARIKA GADDE
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private Book book;
+    private BookDTO bookDTO;
+
+    @Setup
+    public void setUp() {
+        this.book = BenchmarkData.book(42);
+        this.bookDTO = BenchmarkData.bookDTO(42);
+    }
+
+    @Benchmark
+    public BookDTO mapBookEntityToDTO() {
+        return Utils.mapBookEntityToDTO(this.book);
+    }
+
+    @Benchmark
+    public Book convertToBookEntity() {
+        return Utils.convertToBookEntity(this.bookDTO);
+    }
+}
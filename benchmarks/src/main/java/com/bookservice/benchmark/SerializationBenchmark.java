@@ -0,0 +1,84 @@
+package com.bookservice.benchmark;
+
+import com.bookservice.dto.BookDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the Jackson serialization of book lists as returned by the
+ * list endpoints
+ *
+ * @author NIHARIKA GADDE
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SerializationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean afterburner;
+
+    private List<BookDTO> books;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        this.books = BenchmarkData.bookDTOs(this.size);
+        ObjectMapper objectMapper = new ObjectMapper();
+        if (this.afterburner) {
+            objectMapper.registerModule(new AfterburnerModule());
+        }
+        this.writer = objectMapper.writerFor(new TypeReference<List<BookDTO>>() {
+        });
+    }
+
+    @Benchmark
+    public void serializeList(Blackhole blackhole) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        this.writer.writeValue(out, this.books);
+        blackhole.consume(out.count);
+    }
+
+    /**
+     * Output stream discarding the bytes, so that only the encoding is measured
+     */
+    static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.count += len;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.bookservice.benchmark;
+
+import com.bookservice.cache.BookCache;
+import com.bookservice.dto.BookDTO;
+import com.bookservice.service.BooksService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the {@link BooksService} read operations against a seeded H2.
+ * The seeded books are dropped from the {@link BookCache}, the cache-miss
+ * variant drops the looked up book again before every lookup
+ *
+ * @author NIHARIKA GADDE
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ServiceBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"100"})
+    private int selectSize;
+
+    private ConfigurableApplicationContext context;
+    private BooksService booksService;
+    private BookCache bookCache;
+    private List<Long> ids;
+
+    @Setup
+    public void setUp() {
+        this.context = BenchmarkApplication.start(WebApplicationType.NONE);
+        this.booksService = this.context.getBean(BooksService.class);
+        this.bookCache = this.context.getBean(BookCache.class);
+        this.ids = BenchmarkApplication.seed(this.context, this.rows);
+        this.ids.forEach(this.bookCache::invalidate);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public List<BookDTO> findAll() {
+        return this.booksService.findAll();
+    }
+
+    /**
+     * Lookup of a book served from the cache once it has been loaded
+     */
+    @Benchmark
+    public Optional<BookDTO> findById() {
+        return this.booksService.findById(randomId());
+    }
+
+    /**
+     * Lookup of a book that is not cached, read from H2 through the micro-batch
+     * window of the single book lookups
+     */
+    @Benchmark
+    public Optional<BookDTO> findByIdCacheMiss() {
+        Long bookId = randomId();
+        this.bookCache.invalidate(bookId);
+        return this.booksService.findById(bookId);
+    }
+
+    /**
+     * Lookup of an id that does not exist, as sent by clients probing random ids
+     */
+    @Benchmark
+    public Optional<BookDTO> findMissingById() {
+        return this.booksService.findById(ThreadLocalRandom.current().nextLong(Integer.MAX_VALUE, Long.MAX_VALUE));
+    }
+
+    @Benchmark
+    public List<BookDTO> findByIdIn() {
+        List<Long> selectedIds = new ArrayList<>(this.selectSize);
+        for (int i = 0; i < this.selectSize; i++) {
+            selectedIds.add(randomId());
+        }
+        return this.booksService.findByIdIn(selectedIds);
+    }
+
+    private Long randomId() {
+        return this.ids.get(ThreadLocalRandom.current().nextInt(this.ids.size()));
+    }
+}
@@ -0,0 +1,108 @@
+package com.bookservice.benchmark;
+
+import com.bookservice.dto.BookDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the wire formats offered by the content negotiation: encoding
+ * and decoding of a book list, with the encoded size reported as the
+ * "bytes" secondary result
+ *
+ * @author NIHARIKA GADDE
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class WireFormatBenchmark {
+
+    private static final TypeReference<List<BookDTO>> BOOK_LIST = new TypeReference<List<BookDTO>>() {
+    };
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private List<BookDTO> books;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.books = BenchmarkData.bookDTOs(this.size);
+        ObjectMapper objectMapper = new ObjectMapper(factory(this.format))
+                .registerModule(new JavaTimeModule())
+                .registerModule(new AfterburnerModule());
+        this.writer = objectMapper.writerFor(BOOK_LIST);
+        this.reader = objectMapper.readerFor(BOOK_LIST);
+        this.encoded = this.writer.writeValueAsBytes(this.books);
+    }
+
+    @Benchmark
+    public byte[] encode(EncodedSize encodedSize) throws IOException {
+        byte[] bytes = this.writer.writeValueAsBytes(this.books);
+        encodedSize.bytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public List<BookDTO> decode() throws IOException {
+        return this.reader.readValue(this.encoded);
+    }
+
+    private static JsonFactory factory(String format) {
+        switch (format) {
+            case "smile":
+                return new SmileFactory();
+            case "cbor":
+                return new CBORFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+
+    /**
+     * Size of the encoded list, reported next to the throughput
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class EncodedSize {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.bytes = 0;
+        }
+    }
+}
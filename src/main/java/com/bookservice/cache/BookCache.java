@@ -0,0 +1,210 @@
+package com.bookservice.cache;
+
+import com.bookservice.dto.BookDTO;
+import com.bookservice.event.BookChangedEvent;
+import com.bookservice.event.RemoteBookChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-tier cache of books keyed by id. The in-process tier (L1) is bounded by
+ * size and TTL (W-TinyLFU), with its hit/miss/eviction statistics published
+ * under the "books" cache name; the optional {@link SharedBookCache} (L2) is
+ * shared by the nodes. Both tiers are written through once a
+ * {@link BookChangedEvent} commits.
+ * <p>
+ * Every change, local or reported by another node as a
+ * {@link RemoteBookChangedEvent}, leaves a fence with the new version of the
+ * book (a deleted book is fenced for good). A book loaded before the change
+ * is older than its fence and is not cached, and the L1 entries older than a
+ * fence are dropped. Requests per tier are counted in books.cache.requests
+ *
+ * @author NIHARIKA GADDE
+ */
+@Component
+public class BookCache {
+
+    static final String CACHE_NAME = "books";
+    static final String TIER_REQUESTS_METRIC = "books.cache.requests";
+    static final String STALE_PUTS_METRIC = "books.cache.stale.puts";
+
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final Cache<Long, BookDTO> cache;
+    private final Cache<Long, Long> fences;
+    private final SharedBookCache sharedCache;
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter stalePuts;
+
+    public BookCache(@Value("${books.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${books.cache.expire-after-write-seconds:600}") long expireAfterWriteSeconds,
+                     @Value("${books.cache.fence-seconds:60}") long fenceSeconds,
+                     ObjectProvider<SharedBookCache> sharedCache,
+                     MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        this.fences = Caffeine.newBuilder()
+                .expireAfterWrite(fenceSeconds, TimeUnit.SECONDS)
+                .build();
+        this.sharedCache = sharedCache.getIfAvailable();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+        this.l1Hits = meterRegistry.counter(TIER_REQUESTS_METRIC, "tier", "l1", "result", "hit");
+        this.l1Misses = meterRegistry.counter(TIER_REQUESTS_METRIC, "tier", "l1", "result", "miss");
+        this.l2Hits = meterRegistry.counter(TIER_REQUESTS_METRIC, "tier", "l2", "result", "hit");
+        this.l2Misses = meterRegistry.counter(TIER_REQUESTS_METRIC, "tier", "l2", "result", "miss");
+        this.stalePuts = meterRegistry.counter(STALE_PUTS_METRIC);
+    }
+
+    /**
+     * Get a cached book, from L1 or else from L2
+     *
+     * @param bookId
+     * @return Optional of the cached book {@link BookDTO}
+     */
+    public Optional<BookDTO> get(Long bookId) {
+        if (null == bookId) {
+            return Optional.empty();
+        }
+        BookDTO book = this.cache.getIfPresent(bookId);
+        if (null != book) {
+            this.l1Hits.increment();
+            return Optional.of(book);
+        }
+        this.l1Misses.increment();
+        if (null == this.sharedCache) {
+            return Optional.empty();
+        }
+        Optional<BookDTO> sharedBook = this.sharedCache.get(bookId).filter(this::putLocal);
+        if (sharedBook.isPresent()) {
+            this.l2Hits.increment();
+        } else {
+            this.l2Misses.increment();
+        }
+        return sharedBook;
+    }
+
+    /**
+     * Add a book loaded from the database to both tiers, unless a newer version
+     * is known
+     *
+     * @param book {@link BookDTO}
+     */
+    public void put(BookDTO book) {
+        if (null != book && null != book.getId() && putLocal(book) && null != this.sharedCache) {
+            this.sharedCache.put(book);
+        }
+    }
+
+    /**
+     * Current version of a book as known to this node, from its fence or else
+     * from its L1 entry, without reading the database or L2
+     *
+     * @param bookId
+     * @return Optional of the version, empty if it is unknown or the book is deleted
+     */
+    public Optional<Long> knownVersion(Long bookId) {
+        if (null == bookId) {
+            return Optional.empty();
+        }
+        Long fence = this.fences.getIfPresent(bookId);
+        if (null != fence) {
+            return DELETED == fence ? Optional.empty() : Optional.of(fence);
+        }
+        return Optional.ofNullable(this.cache.getIfPresent(bookId)).map(BookDTO::getVersion);
+    }
+
+    /**
+     * Remove a book from the cache of this node
+     *
+     * @param bookId
+     */
+    public void invalidate(Long bookId) {
+        if (null != bookId) {
+            this.cache.invalidate(bookId);
+        }
+    }
+
+    /**
+     * Ids of the most frequently used books, as estimated by the eviction policy
+     *
+     * @param limit maximum number of ids
+     * @return ids, hottest first
+     */
+    public List<Long> hottestIds(int limit) {
+        return this.cache.policy().eviction()
+                .map(eviction -> (List<Long>) new ArrayList<>(eviction.hottest(limit).keySet()))
+                .orElse(Collections.emptyList());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.isDelete()) {
+            fence(event.getBookId(), DELETED);
+            if (null != this.sharedCache) {
+                this.sharedCache.delete(event.getBookId());
+            }
+        } else {
+            fence(event.getBookId(), versionOf(event.getBook()));
+            put(event.getBook());
+        }
+    }
+
+    @EventListener
+    public void onRemoteBookChanged(RemoteBookChangedEvent event) {
+        fence(event.getBookId(), event.isDeleted() || null == event.getVersion() ? DELETED : event.getVersion());
+    }
+
+    static long versionOf(BookDTO book) {
+        return null == book.getVersion() ? 0L : book.getVersion();
+    }
+
+    /**
+     * Raises the fence of a book and drops its L1 entry if it is older. The fence
+     * is raised first, so that a concurrent {@link #putLocal} either sees it or is
+     * dropped here, both run atomically on the entry of the book
+     */
+    private void fence(Long bookId, long version) {
+        if (null == bookId) {
+            return;
+        }
+        this.fences.asMap().merge(bookId, version, Math::max);
+        this.cache.asMap().computeIfPresent(bookId, (id, current) -> versionOf(current) < version ? null : current);
+    }
+
+    private boolean putLocal(BookDTO book) {
+        long version = versionOf(book);
+        boolean[] stored = {false};
+        this.cache.asMap().compute(book.getId(), (id, current) -> {
+            Long fence = this.fences.getIfPresent(id);
+            if ((null != fence && version < fence) || (null != current && versionOf(current) > version)) {
+                return current;
+            }
+            stored[0] = true;
+            return book;
+        });
+        if (!stored[0]) {
+            this.stalePuts.increment();
+        }
+        return stored[0];
+    }
+}
@@ -0,0 +1,179 @@
+package com.bookservice.cache;
+
+import com.bookservice.event.BookChangedEvent;
+import com.bookservice.event.RemoteBookChangedEvent;
+import com.bookservice.sharding.BookShards;
+import com.bookservice.sharding.SnowflakeIds;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over the ids of the books, answering whether a book may exist
+ * without reading the database. It is filled from the book tables of all the
+ * shards in the background at startup and every upserted id is added on its
+ * {@link BookChangedEvent}, which is published before the change commits, so
+ * an id created by this node is never reported absent. Ids created by the other
+ * nodes are added on their {@link RemoteBookChangedEvent}, which only arrives
+ * after they commit, so the ids allocated within books.bloom.propagation-window-millis
+ * of now always may exist. An id created by another node whose event is lost
+ * is reported absent once it is older than the window, until the next restart.
+ * Deleted ids stay in the filter and only cost a database lookup. Until the
+ * initial load is done every id may exist.
+ * <p>
+ * The bits live in an {@link AtomicLongArray} and are set with CAS, so adds and
+ * lookups need no lock. The size follows from books.bloom.expected-ids and
+ * books.bloom.false-positive-rate; beyond the expected number of ids the false
+ * positive rate rises and a warning is logged
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+@Component
+public class BookIdFilter {
+
+    private static final String SELECT_IDS = "select id from book";
+
+    private final boolean enabled;
+    private final long expectedIds;
+    private final long propagationWindowMillis;
+    private final JdbcTemplate jdbcTemplate;
+    private final BookShards bookShards;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicLong addedIds = new AtomicLong();
+    private volatile boolean loaded;
+
+    public BookIdFilter(@Value("${books.bloom.enabled:true}") boolean enabled,
+                        @Value("${books.bloom.expected-ids:1000000}") long expectedIds,
+                        @Value("${books.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+                        @Value("${books.bloom.propagation-window-millis:60000}") long propagationWindowMillis,
+                        DataSource dataSource,
+                        BookShards bookShards) {
+        this.enabled = enabled;
+        this.expectedIds = Math.max(1, expectedIds);
+        this.propagationWindowMillis = propagationWindowMillis;
+        long optimalBits = (long) Math.ceil(-this.expectedIds * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) >>> 6));
+        this.bits = new AtomicLongArray(enabled ? words : 1);
+        this.bitCount = (long) this.bits.length() << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) this.bitCount / this.expectedIds * Math.log(2)));
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(1000);
+        this.bookShards = bookShards;
+    }
+
+    @PostConstruct
+    void load() {
+        if (!this.enabled) {
+            return;
+        }
+        Thread loader = new Thread(() -> {
+            try {
+                loadIds();
+            } catch (Exception ex) {
+                log.error(ex.getLocalizedMessage());
+            }
+        }, "book-id-filter-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Adds the ids of the book tables of all the shards, on the calling thread
+     */
+    void loadIds() {
+        this.bookShards.scatter(shard -> {
+            this.jdbcTemplate.query(SELECT_IDS, rs -> {
+                add(rs.getLong(1));
+            });
+            return null;
+        });
+        this.loaded = true;
+        log.info("Book id filter loaded with {} ids", this.addedIds.get());
+    }
+
+    /**
+     * Tells whether a book may exist
+     *
+     * @param bookId id of the book
+     * @return false only if no book has this id
+     */
+    public boolean mightContain(Long bookId) {
+        if (null == bookId) {
+            return false;
+        }
+        if (!this.enabled || !this.loaded || isRecent(bookId)) {
+            return true;
+        }
+        long hash1 = mix(bookId);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < this.hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, this.bitCount);
+            if (0 == (this.bits.get((int) (bit >>> 6)) & (1L << bit))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (this.enabled && !event.isDelete()) {
+            add(event.getBookId());
+        }
+    }
+
+    @EventListener
+    public void onRemoteBookChanged(RemoteBookChangedEvent event) {
+        if (this.enabled && !event.isDeleted()) {
+            add(event.getBookId());
+        }
+    }
+
+    /**
+     * Tells whether the id was allocated so recently that the event of another
+     * node may still be on its way, the window also covers the clock skew
+     */
+    private boolean isRecent(long bookId) {
+        long now = System.currentTimeMillis();
+        long millis = SnowflakeIds.millisOf(bookId);
+        return millis > now - this.propagationWindowMillis && millis < now + this.propagationWindowMillis;
+    }
+
+    private void add(long bookId) {
+        long hash1 = mix(bookId);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < this.hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, this.bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (0 == ((current = this.bits.get(word)) & mask)
+                    && !this.bits.compareAndSet(word, current, current | mask)) {
+                // another bit of the word was set concurrently, retry
+            }
+        }
+        if (this.addedIds.incrementAndGet() == this.expectedIds + 1) {
+            log.warn("More than {} book ids in the id filter, raise books.bloom.expected-ids", this.expectedIds);
+        }
+    }
+
+    /**
+     * Finalizer of SplitMix64, spreads the sequential ids over the whole range
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
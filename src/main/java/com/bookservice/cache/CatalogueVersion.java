@@ -0,0 +1,44 @@
+package com.bookservice.cache;
+
+import com.bookservice.event.BookChangedEvent;
+import com.bookservice.event.RemoteBookChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter of the changes made to the catalogue, used to validate the collection
+ * responses. The start time of the instance is part of the ETag so that a
+ * restart never hands out a previously used value. Local changes are counted
+ * once they are committed, so that a new ETag is never paired with old data
+ *
+ * @author NIHARIKA GADDE
+ */
+@Component
+public class CatalogueVersion {
+
+    private final long epoch = System.currentTimeMillis();
+
+    private final AtomicLong changes = new AtomicLong();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        this.changes.incrementAndGet();
+    }
+
+    @EventListener
+    public void onRemoteBookChanged(RemoteBookChangedEvent event) {
+        this.changes.incrementAndGet();
+    }
+
+    /**
+     * Weak ETag of the current state of the catalogue
+     *
+     * @return quoted ETag
+     */
+    public String getETag() {
+        return "W/\"" + this.epoch + "-" + this.changes.get() + "\"";
+    }
+}
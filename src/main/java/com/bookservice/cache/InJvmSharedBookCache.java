@@ -0,0 +1,67 @@
+package com.bookservice.cache;
+
+import com.bookservice.dto.BookDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SharedBookCache} held in a static region of the JVM, so that every
+ * application context of the JVM shares it. It stands in for a networked cache
+ * when several nodes are started in one JVM (local runs, benchmarks); a real
+ * deployment plugs a distributed store in behind the same interface
+ *
+ * @author NIHARIKA GADDE
+ */
+public class InJvmSharedBookCache implements SharedBookCache {
+
+    private static final ConcurrentMap<String, Cache<Long, VersionedBook>> REGIONS = new ConcurrentHashMap<>();
+
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final Cache<Long, VersionedBook> region;
+
+    public InJvmSharedBookCache(String regionName, long maximumSize, long expireAfterWriteSeconds) {
+        this.region = REGIONS.computeIfAbsent(regionName, name -> Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .build());
+    }
+
+    @Override
+    public Optional<BookDTO> get(Long bookId) {
+        if (null == bookId) {
+            return Optional.empty();
+        }
+        VersionedBook entry = this.region.getIfPresent(bookId);
+        return null == entry ? Optional.empty() : Optional.ofNullable(entry.book);
+    }
+
+    @Override
+    public void put(BookDTO book) {
+        if (null == book || null == book.getId()) {
+            return;
+        }
+        VersionedBook entry = new VersionedBook(BookCache.versionOf(book), book);
+        this.region.asMap().merge(book.getId(), entry,
+                (current, candidate) -> candidate.version > current.version ? candidate : current);
+    }
+
+    @Override
+    public void delete(Long bookId) {
+        if (null != bookId) {
+            this.region.put(bookId, new VersionedBook(DELETED, null));
+        }
+    }
+
+    @AllArgsConstructor
+    private static class VersionedBook {
+        private final long version;
+        private final BookDTO book;
+    }
+}
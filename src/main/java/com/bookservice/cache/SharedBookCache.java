@@ -0,0 +1,36 @@
+package com.bookservice.cache;
+
+import com.bookservice.dto.BookDTO;
+
+import java.util.Optional;
+
+/**
+ * Cache shared by all the nodes of the deployment (L2), behind the in-process
+ * {@link BookCache} (L1). Entries are versioned: a put only replaces an older
+ * version, and a delete leaves a tombstone so that a node still holding the
+ * deleted book cannot write it back
+ *
+ * @author NIHARIKA GADDE
+ */
+public interface SharedBookCache {
+
+    /**
+     * @param bookId id of the book
+     * @return Optional of the cached book {@link BookDTO}, empty if absent or deleted
+     */
+    Optional<BookDTO> get(Long bookId);
+
+    /**
+     * Stores the book unless a newer version, or a tombstone, is stored already
+     *
+     * @param book {@link BookDTO}
+     */
+    void put(BookDTO book);
+
+    /**
+     * Replaces the book with a tombstone
+     *
+     * @param bookId id of the book
+     */
+    void delete(Long bookId);
+}
@@ -0,0 +1,27 @@
+package com.bookservice.cache.invalidation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Message broadcast to the other nodes after a change of a book commits
+ *
+ * @author NIHARIKA GADDE
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookInvalidation {
+
+    private String origin;
+
+    private Long bookId;
+
+    private Long version;
+
+    private boolean deleted;
+
+}
@@ -0,0 +1,71 @@
+package com.bookservice.cache.invalidation;
+
+import com.bookservice.event.BookChangedEvent;
+import com.bookservice.event.RemoteBookChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.UUID;
+
+/**
+ * Broadcasts the changes of the books to the other nodes once they commit, and
+ * republishes the changes received from the other nodes as
+ * {@link RemoteBookChangedEvent}s. Messages of this node are recognized by its
+ * random node id and skipped. It is never created lazily, so that it listens
+ * from the start
+ *
+ * @author NIHARIKA GADDE
+ */
+@Lazy(false)
+@Component
+public class CacheInvalidation {
+
+    private static final String INVALIDATIONS_METRIC = "books.cache.invalidations";
+
+    @Autowired
+    private InvalidationTransport invalidationTransport;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private Counter sent;
+    private Counter received;
+
+    @PostConstruct
+    void init() {
+        this.sent = this.meterRegistry.counter(INVALIDATIONS_METRIC, "direction", "sent");
+        this.received = this.meterRegistry.counter(INVALIDATIONS_METRIC, "direction", "received");
+        this.invalidationTransport.subscribe(this::receive);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        this.invalidationTransport.publish(BookInvalidation.builder()
+                .origin(this.nodeId)
+                .bookId(event.getBookId())
+                .version(event.isDelete() ? null : event.getBook().getVersion())
+                .deleted(event.isDelete())
+                .build());
+        this.sent.increment();
+    }
+
+    private void receive(BookInvalidation invalidation) {
+        if (this.nodeId.equals(invalidation.getOrigin())) {
+            return;
+        }
+        this.received.increment();
+        this.eventPublisher.publishEvent(new RemoteBookChangedEvent(invalidation.getBookId(),
+                invalidation.getVersion(), invalidation.isDeleted()));
+    }
+}
@@ -0,0 +1,16 @@
+package com.bookservice.cache.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Transport of the {@link BookInvalidation} messages between the nodes. Every
+ * subscriber receives every published message, its own ones included
+ *
+ * @author NIHARIKA GADDE
+ */
+public interface InvalidationTransport {
+
+    void publish(BookInvalidation invalidation);
+
+    void subscribe(Consumer<BookInvalidation> subscriber);
+}
@@ -0,0 +1,77 @@
+package com.bookservice.cache.invalidation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.MessageListener;
+import javax.jms.TextMessage;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link InvalidationTransport} over a JMS topic, as JSON text messages. With
+ * the default spring.activemq settings the broker is embedded in the JVM
+ * (vm://), point spring.activemq.broker-url to a shared broker to reach the
+ * other nodes. Messages are not persistent: a node that was down rebuilds
+ * its cache from the database when it starts
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+public class JmsInvalidationTransport implements InvalidationTransport, DisposableBean {
+
+    private final JmsTemplate jmsTemplate;
+    private final DefaultMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final String topic;
+    private final List<Consumer<BookInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    public JmsInvalidationTransport(ConnectionFactory connectionFactory, ObjectMapper objectMapper, String topic) {
+        this.objectMapper = objectMapper;
+        this.topic = topic;
+        this.jmsTemplate = new JmsTemplate(connectionFactory);
+        this.jmsTemplate.setPubSubDomain(true);
+        this.listenerContainer = new DefaultMessageListenerContainer();
+        this.listenerContainer.setConnectionFactory(connectionFactory);
+        this.listenerContainer.setDestinationName(topic);
+        this.listenerContainer.setPubSubDomain(true);
+        this.listenerContainer.setMessageListener((MessageListener) message -> {
+            try {
+                BookInvalidation invalidation = this.objectMapper.readValue(((TextMessage) message).getText(),
+                        BookInvalidation.class);
+                this.subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+            } catch (JMSException | IOException ex) {
+                log.error(ex.getLocalizedMessage());
+            }
+        });
+        this.listenerContainer.afterPropertiesSet();
+        this.listenerContainer.start();
+    }
+
+    @Override
+    public void publish(BookInvalidation invalidation) {
+        try {
+            this.jmsTemplate.convertAndSend(this.topic, this.objectMapper.writeValueAsString(invalidation));
+        } catch (JsonProcessingException ex) {
+            log.error(ex.getLocalizedMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<BookInvalidation> subscriber) {
+        this.subscribers.add(subscriber);
+    }
+
+    @Override
+    public void destroy() {
+        this.listenerContainer.shutdown();
+    }
+}
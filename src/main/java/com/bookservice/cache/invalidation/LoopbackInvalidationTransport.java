@@ -0,0 +1,37 @@
+package com.bookservice.cache.invalidation;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link InvalidationTransport} within the JVM: messages are handed
+ * synchronously to the subscribers of every application context of the JVM.
+ * With a single node it only loops back to itself
+ *
+ * @author NIHARIKA GADDE
+ */
+public class LoopbackInvalidationTransport implements InvalidationTransport, DisposableBean {
+
+    private static final List<Consumer<BookInvalidation>> SUBSCRIBERS = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<BookInvalidation>> ownSubscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(BookInvalidation invalidation) {
+        SUBSCRIBERS.forEach(subscriber -> subscriber.accept(invalidation));
+    }
+
+    @Override
+    public void subscribe(Consumer<BookInvalidation> subscriber) {
+        this.ownSubscribers.add(subscriber);
+        SUBSCRIBERS.add(subscriber);
+    }
+
+    @Override
+    public void destroy() {
+        SUBSCRIBERS.removeAll(this.ownSubscribers);
+    }
+}
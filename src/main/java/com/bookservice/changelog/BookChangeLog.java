@@ -0,0 +1,269 @@
+package com.bookservice.changelog;
+
+import com.bookservice.dto.BookChangeDTO;
+import com.bookservice.dto.BookDTO;
+import com.bookservice.event.BookChangedEvent;
+import com.bookservice.exception.InvalidRequestException;
+import com.bookservice.repository.BooksRepository;
+import com.bookservice.sharding.BookShards;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Append-only log of the changes made to the catalogue, numbered in commit
+ * order within each shard
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+@Component
+public class BookChangeLog {
+
+    private static final String LOCK_CHANGES = "update book_change_lock set id = id where id = 1";
+
+    private static final String INSERT_CHANGE = "insert into book_change (seq, book_id, change_type, changed_at) "
+            + "values (next value for book_change_seq, ?, ?, ?)";
+
+    private static final String SELECT_CHANGES = "select seq, book_id, change_type, changed_at from book_change "
+            + "where seq > ? order by seq limit ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BooksRepository booksRepository;
+
+    @Autowired
+    private BookShards bookShards;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final ReentrantLock commitLock = new ReentrantLock();
+
+    private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "book-changes-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void init() {
+        this.transactionTemplate = new TransactionTemplate(this.transactionManager);
+    }
+
+    @PreDestroy
+    void close() {
+        this.timeouts.shutdownNow();
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingChanges().add(event);
+        } else {
+            this.commitLock.lock();
+            try {
+                this.transactionTemplate.execute(status -> {
+                    append(Collections.singletonList(event));
+                    return null;
+                });
+            } finally {
+                this.commitLock.unlock();
+            }
+            signal();
+        }
+    }
+
+    /**
+     * Parses a cursor returned by {@link Page#getNextCursor()}, "0" reads from
+     * the start of every shard
+     *
+     * @param cursor last sequence number read from every shard, comma separated
+     * @return sequence number per shard
+     * @throws InvalidRequestException is thrown if the cursor is malformed
+     */
+    public long[] parseCursor(String cursor) {
+        long[] since = new long[this.bookShards.count()];
+        if (StringUtils.isBlank(cursor) || "0".equals(cursor.trim())) {
+            return since;
+        }
+        String[] seqs = cursor.split(",");
+        if (seqs.length != since.length) {
+            throw new InvalidRequestException("The cursor must hold " + since.length + " sequence numbers: " + cursor);
+        }
+        for (int shard = 0; shard < seqs.length; shard++) {
+            try {
+                since[shard] = Long.parseLong(seqs[shard].trim());
+            } catch (NumberFormatException ex) {
+                throw new InvalidRequestException("Invalid cursor: " + cursor);
+            }
+        }
+        return since;
+    }
+
+    /**
+     * Reads the changes committed after the given cursor, in sequence order
+     * within every shard. Upserts carry the current state of the book, upserts
+     * of books deleted since then are skipped as their tombstone follows in the log
+     *
+     * @param since last sequence number read from every shard, see {@link #parseCursor(String)}
+     * @param limit maximum number of changes
+     * @return Page of changes {@link BookChangeDTO} and the cursor to continue from
+     */
+    public Page findSince(long[] since, int limit) {
+        List<BookChangeDTO> changes = BookShards.merge(this.bookShards.scatter(shard -> this.jdbcTemplate.query(SELECT_CHANGES,
+                (rs, rowNum) -> BookChangeDTO.builder()
+                        .shard(shard)
+                        .seq(rs.getLong("seq"))
+                        .bookId(rs.getLong("book_id"))
+                        .type(BookChangedEvent.Type.valueOf(rs.getString("change_type")))
+                        .changedAt(rs.getTimestamp("changed_at").toInstant())
+                        .build(), since[shard], limit)), Comparator.comparing(BookChangeDTO::getChangedAt), limit);
+        long[] next = since.clone();
+        changes.forEach(change -> next[change.getShard()] = change.getSeq());
+        String nextCursor = Arrays.stream(next).mapToObj(String::valueOf).collect(joining(","));
+        List<Long> upsertedIds = changes.stream()
+                .filter(change -> BookChangedEvent.Type.UPSERT == change.getType())
+                .map(BookChangeDTO::getBookId)
+                .distinct()
+                .collect(toList());
+        if (upsertedIds.isEmpty()) {
+            return new Page(changes, nextCursor, changes.isEmpty());
+        }
+        Map<Long, BookDTO> books = this.bookShards.gatherByIds(upsertedIds, this.booksRepository::findBookDTOsByIdIn).stream()
+                .collect(toMap(BookDTO::getId, identity()));
+        List<BookChangeDTO> resolved = new ArrayList<>(changes.size());
+        for (BookChangeDTO change : changes) {
+            if (BookChangedEvent.Type.DELETE == change.getType()) {
+                resolved.add(change);
+            } else if (books.containsKey(change.getBookId())) {
+                change.setBook(books.get(change.getBookId()));
+                resolved.add(change);
+            }
+        }
+        return new Page(resolved, nextCursor, false);
+    }
+
+    /**
+     * Future completed by the next commit of a change, or once the timeout elapses
+     *
+     * @param timeoutMillis maximum time to wait
+     * @return future completed with no value
+     */
+    public CompletableFuture<Void> awaitChange(long timeoutMillis) {
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        this.waiters.add(waiter);
+        this.timeouts.schedule(() -> waiter.complete(null), timeoutMillis, TimeUnit.MILLISECONDS);
+        waiter.whenComplete((result, ex) -> this.waiters.remove(waiter));
+        return waiter;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BookChangedEvent> pendingChanges() {
+        List<BookChangedEvent> pending = (List<BookChangedEvent>) TransactionSynchronizationManager.getResource(this);
+        if (null == pending) {
+            pending = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new ChangeLogSynchronization(pending));
+        }
+        return pending;
+    }
+
+    private void append(List<BookChangedEvent> events) {
+        // held until the transaction completes, it orders the commits of all the nodes on this shard
+        this.jdbcTemplate.update(LOCK_CHANGES);
+        Timestamp changedAt = Timestamp.from(Instant.now());
+        this.jdbcTemplate.batchUpdate(INSERT_CHANGE, events, events.size(), (ps, event) -> {
+            ps.setLong(1, event.getBookId());
+            ps.setString(2, event.getType().name());
+            ps.setTimestamp(3, changedAt);
+        });
+    }
+
+    private void signal() {
+        CompletableFuture<Void> waiter;
+        while (null != (waiter = this.waiters.poll())) {
+            waiter.complete(null);
+        }
+    }
+
+    private class ChangeLogSynchronization extends TransactionSynchronizationAdapter {
+
+        private final List<BookChangedEvent> pending;
+        private boolean locked;
+
+        ChangeLogSynchronization(List<BookChangedEvent> pending) {
+            this.pending = pending;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!this.pending.isEmpty()) {
+                commitLock.lock();
+                this.locked = true;
+                append(this.pending);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(BookChangeLog.this);
+            if (this.locked) {
+                commitLock.unlock();
+            }
+            if (TransactionSynchronization.STATUS_COMMITTED == status && !this.pending.isEmpty()) {
+                signal();
+            }
+        }
+    }
+
+    /**
+     * Changes read from the log
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Page {
+        private final List<BookChangeDTO> changes;
+        private final String nextCursor;
+        private final boolean exhausted;
+    }
+}
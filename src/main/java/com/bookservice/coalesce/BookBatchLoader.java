@@ -0,0 +1,148 @@
+package com.bookservice.coalesce;
+
+import com.bookservice.config.ExecutorConfig;
+import com.bookservice.dto.BookDTO;
+import com.bookservice.repository.BooksRepository;
+import com.bookservice.sharding.BookShards;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Micro-batching loader of single books. The ids requested within a short window
+ * are collected and fetched with one IN query, which is issued when the window
+ * elapses or as soon as the batch is full
+ *
+ * @author NIHARIKA GADDE
+ */
+@Component
+public class BookBatchLoader {
+
+    @Autowired
+    private BooksRepository booksRepository;
+
+    @Autowired
+    private BookShards bookShards;
+
+    @Autowired
+    @Qualifier(ExecutorConfig.MULTI_GET_EXECUTOR)
+    private Executor multiGetExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${books.coalescing.batch-window-millis:2}")
+    private long batchWindowMillis;
+
+    @Value("${books.coalescing.max-batch-size:100}")
+    private int maxBatchSize;
+
+    private final Object lock = new Object();
+    private Map<Long, CompletableFuture<Optional<BookDTO>>> pending = new HashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private ScheduledExecutorService scheduler;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    void init() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-batch-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchSizes = DistributionSummary.builder("books.coalescing.batch.size")
+                .description("Number of ids fetched by every micro-batch")
+                .register(this.meterRegistry);
+    }
+
+    @PreDestroy
+    void close() {
+        this.scheduler.shutdownNow();
+    }
+
+    /**
+     * @return true if the calls are batched, i.e. the batch window is positive
+     */
+    public boolean isEnabled() {
+        return this.batchWindowMillis > 0;
+    }
+
+    /**
+     * Loads a book with the next micro-batch
+     *
+     * @param bookId id of the book
+     * @return future of the found book, empty if it does not exist
+     */
+    public CompletableFuture<Optional<BookDTO>> load(Long bookId) {
+        Map<Long, CompletableFuture<Optional<BookDTO>>> fullBatch = null;
+        CompletableFuture<Optional<BookDTO>> future;
+        synchronized (this.lock) {
+            future = this.pending.get(bookId);
+            if (null == future) {
+                future = new CompletableFuture<>();
+                this.pending.put(bookId, future);
+                if (this.pending.size() >= this.maxBatchSize) {
+                    fullBatch = takePending();
+                } else if (this.pending.size() == 1) {
+                    this.scheduledFlush = this.scheduler.schedule(this::flush, this.batchWindowMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        if (null != fullBatch) {
+            fetch(fullBatch);
+        }
+        return future;
+    }
+
+    private void flush() {
+        Map<Long, CompletableFuture<Optional<BookDTO>>> batch;
+        synchronized (this.lock) {
+            if (this.pending.isEmpty()) {
+                return;
+            }
+            batch = takePending();
+        }
+        this.multiGetExecutor.execute(() -> fetch(batch));
+    }
+
+    private Map<Long, CompletableFuture<Optional<BookDTO>>> takePending() {
+        Map<Long, CompletableFuture<Optional<BookDTO>>> batch = this.pending;
+        this.pending = new HashMap<>();
+        if (null != this.scheduledFlush) {
+            this.scheduledFlush.cancel(false);
+            this.scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void fetch(Map<Long, CompletableFuture<Optional<BookDTO>>> batch) {
+        this.batchSizes.record(batch.size());
+        try {
+            Map<Long, BookDTO> books = this.bookShards.gatherByIds(batch.keySet(), this.booksRepository::findBookDTOsByIdIn)
+                    .stream()
+                    .collect(toMap(BookDTO::getId, Function.identity()));
+            batch.forEach((bookId, future) -> future.complete(Optional.ofNullable(books.get(bookId))));
+        } catch (Exception ex) {
+            batch.values().forEach(future -> future.completeExceptionally(ex));
+        }
+    }
+}
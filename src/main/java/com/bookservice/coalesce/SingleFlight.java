@@ -0,0 +1,73 @@
+package com.bookservice.coalesce;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller (the leader) runs
+ * the call while the callers arriving before it completes (the followers) wait
+ * for its result instead of running the call again. Results are not kept once
+ * the call completes, so this only collapses calls that overlap in time.
+ * <p>
+ * The "books.coalescing" counter is tagged with the role of every caller, the
+ * coalescing ratio is followers / (leaders + followers)
+ *
+ * @author NIHARIKA GADDE
+ */
+public class SingleFlight<K, V> {
+
+    public static final String COALESCING_COUNTER = "books.coalescing";
+
+    private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+
+    public SingleFlight(String operation, MeterRegistry meterRegistry) {
+        this.leaders = meterRegistry.counter(COALESCING_COUNTER, "operation", operation, "role", "leader");
+        this.followers = meterRegistry.counter(COALESCING_COUNTER, "operation", operation, "role", "follower");
+    }
+
+    /**
+     * Runs the call for the given key, or waits for the one already in flight
+     *
+     * @param key  key of the call
+     * @param call call to run when there is none in flight
+     * @return result of the call
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = this.calls.putIfAbsent(key, future);
+        if (null != inFlight) {
+            this.followers.increment();
+            return join(inFlight);
+        }
+        this.leaders.increment();
+        try {
+            V result = call.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            this.calls.remove(key, future);
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+}
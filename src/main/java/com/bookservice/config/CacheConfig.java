@@ -0,0 +1,55 @@
+package com.bookservice.config;
+
+import com.bookservice.cache.InJvmSharedBookCache;
+import com.bookservice.cache.SharedBookCache;
+import com.bookservice.cache.invalidation.InvalidationTransport;
+import com.bookservice.cache.invalidation.JmsInvalidationTransport;
+import com.bookservice.cache.invalidation.LoopbackInvalidationTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.jms.ConnectionFactory;
+
+/**
+ * Class containing the shared cache tier and the transport of the cache
+ * invalidations between the nodes, selected with books.cache.l2.type
+ * (none or in-jvm) and books.cache.invalidation.transport (loopback or jms)
+ *
+ * @author NIHARIKA GADDE
+ */
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Shared tier held in the JVM, for nodes started in the same JVM
+     */
+    @Bean
+    @ConditionalOnProperty(name = "books.cache.l2.type", havingValue = "in-jvm")
+    public SharedBookCache inJvmSharedBookCache(@Value("${books.cache.l2.region:books}") String region,
+                                                @Value("${books.cache.l2.maximum-size:100000}") long maximumSize,
+                                                @Value("${books.cache.l2.expire-after-write-seconds:600}") long expireAfterWriteSeconds) {
+        return new InJvmSharedBookCache(region, maximumSize, expireAfterWriteSeconds);
+    }
+
+    /**
+     * Invalidations delivered to the nodes of the same JVM
+     */
+    @Bean
+    @ConditionalOnProperty(name = "books.cache.invalidation.transport", havingValue = "loopback", matchIfMissing = true)
+    public InvalidationTransport loopbackInvalidationTransport() {
+        return new LoopbackInvalidationTransport();
+    }
+
+    /**
+     * Invalidations published on a JMS topic, the embedded ActiveMQ broker by default
+     */
+    @Bean
+    @ConditionalOnProperty(name = "books.cache.invalidation.transport", havingValue = "jms")
+    public InvalidationTransport jmsInvalidationTransport(ConnectionFactory connectionFactory, ObjectMapper objectMapper,
+                                                          @Value("${books.cache.invalidation.topic:books.cache.invalidation}") String topic) {
+        return new JmsInvalidationTransport(connectionFactory, objectMapper, topic);
+    }
+}
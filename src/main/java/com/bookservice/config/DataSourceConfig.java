@@ -0,0 +1,149 @@
+package com.bookservice.config;
+
+import com.bookservice.routing.LocalReplicaCopier;
+import com.bookservice.routing.ReplicaLagMonitor;
+import com.bookservice.routing.ReplicaRoutingDataSource;
+import com.bookservice.sharding.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Class containing the data sources when books.replicas.enabled or
+ * books.shards.urls is set. The primary pool is still configured with
+ * spring.datasource.* and holds shard 0, a read-only pool is opened for each
+ * of books.replicas.urls behind the {@link ReplicaRoutingDataSource} of shard
+ * 0, and a pool is opened for each further shard of books.shards.urls. The
+ * further shards are migrated with the same Flyway locations at startup. With
+ * books.replicas.copy-interval-millis set, the replicas are local databases fed
+ * by a {@link LocalReplicaCopier}
+ *
+ * @author NIHARIKA GADDE
+ */
+@Configuration
+@ConditionalOnExpression("${books.replicas.enabled:false} or !'${books.shards.urls:}'.trim().isEmpty()")
+public class DataSourceConfig {
+
+    public static final String PRIMARY_DATA_SOURCE = "primaryDataSource";
+
+    /**
+     * Pool of the primary, it takes the writes and the reads of the read-write transactions
+     */
+    @Bean(name = PRIMARY_DATA_SOURCE)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Data source of the application, the connection is only taken when the
+     * first statement runs, so the routing sees the shard picked by the thread
+     * and the read-only flag of the transaction
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(ReplicaRoutingDataSource replicaRoutingDataSource,
+                                                         DataSourceProperties properties,
+                                                         @Value("${books.shards.urls:}") String[] urls,
+                                                         @Value("${books.shards.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize,
+                                                         @Value("${spring.flyway.locations:classpath:db/migration}") String[] flywayLocations) {
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(replicaRoutingDataSource);
+        for (String url : urls) {
+            if (StringUtils.isNotBlank(url)) {
+                HikariDataSource shard = newPool("shard-" + shards.size(), url, properties, poolSize, false);
+                Flyway.configure().dataSource(shard).locations(flywayLocations).load().migrate();
+                shards.add(shard);
+            }
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier(PRIMARY_DATA_SOURCE) HikariDataSource primary,
+                                                             DataSourceProperties properties,
+                                                             @Value("${books.replicas.urls:}") String[] urls,
+                                                             @Value("${books.replicas.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize,
+                                                             @Value("${books.replicas.balancing:round-robin}") String balancing,
+                                                             MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (StringUtils.isNotBlank(url)) {
+                replicas.add(newPool("replica-" + (replicas.size() + 1), url, properties, poolSize, true));
+            }
+        }
+        return new ReplicaRoutingDataSource(primary, replicas,
+                ReplicaRoutingDataSource.Balancing.valueOf(balancing.trim().toUpperCase(Locale.ROOT).replace('-', '_')),
+                meterRegistry);
+    }
+
+    /**
+     * Heartbeat of the replicas, started with the application
+     */
+    @Bean
+    @Lazy(false)
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier(PRIMARY_DATA_SOURCE) HikariDataSource primary,
+                                               ReplicaRoutingDataSource routingDataSource,
+                                               @Value("${books.replicas.max-lag-millis:5000}") long maxLagMillis,
+                                               @Value("${books.replicas.heartbeat-interval-millis:1000}") long intervalMillis,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(primary, routingDataSource, maxLagMillis, intervalMillis, meterRegistry);
+    }
+
+    /**
+     * Copy job standing in for the replication when the replicas are local
+     * in-memory databases, started with the application
+     */
+    @Bean
+    @Lazy(false)
+    public LocalReplicaCopier localReplicaCopier(@Qualifier(PRIMARY_DATA_SOURCE) HikariDataSource primary,
+                                                 DataSourceProperties properties,
+                                                 @Value("${books.replicas.urls:}") String[] urls,
+                                                 @Value("${books.replicas.copy-interval-millis:}") long[] intervalsMillis,
+                                                 @Value("${spring.flyway.locations:classpath:db/migration}") String[] flywayLocations) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        if (intervalsMillis.length > 0) {
+            for (String url : urls) {
+                if (StringUtils.isNotBlank(url)) {
+                    replicas.add(newPool("replica-" + (replicas.size() + 1) + "-copier", url, properties, 1, false));
+                }
+            }
+        }
+        return new LocalReplicaCopier(primary, replicas, intervalsMillis, flywayLocations);
+    }
+
+    private static HikariDataSource newPool(String name, String url, DataSourceProperties properties, int poolSize,
+                                            boolean readOnly) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl(url.trim());
+        config.setDriverClassName(properties.determineDriverClassName());
+        config.setUsername(properties.determineUsername());
+        config.setPassword(properties.determinePassword());
+        config.setMaximumPoolSize(poolSize);
+        config.setReadOnly(readOnly);
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,139 @@
+package com.bookservice.config;
+
+import com.bookservice.routing.ReadYourWrites;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Collections;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class containing the executors used by the services
+ *
+ * @author NIHARIKA GADDE
+ */
+@Configuration
+public class ExecutorConfig {
+
+    public static final String MULTI_GET_EXECUTOR = "multiGetExecutor";
+    public static final String REQUEST_EXECUTOR = "requestExecutor";
+    public static final String IMPORT_JOB_EXECUTOR = "importJobExecutor";
+    public static final String IMPORT_WORKER_EXECUTOR = "importWorkerExecutor";
+    public static final String SHARD_EXECUTOR = "shardExecutor";
+
+    private static final String REQUEST_EXECUTOR_METRIC = "books.requests";
+
+    /**
+     * Executor fetching the id batches of a multi-get in parallel. When it is
+     * saturated the batches run on the calling thread. Tasks keep the
+     * read-your-writes flag of the caller
+     */
+    @Bean(name = MULTI_GET_EXECUTOR)
+    public ThreadPoolTaskExecutor multiGetExecutor(@Value("${books.select.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(parallelism * 16);
+        executor.setThreadNamePrefix("books-multi-get-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(ReadYourWrites::propagate);
+        return executor;
+    }
+
+    /**
+     * Executor running the work of the controller requests. It is sized to the
+     * connection pool so that requests queue here instead of waiting for a
+     * connection, and it rejects new work once its queue is full. The time
+     * spent by the tasks in the queue is recorded as books.requests.wait, and
+     * tasks keep the read-your-writes flag of the request
+     */
+    @Bean(name = REQUEST_EXECUTOR)
+    public ThreadPoolTaskExecutor requestExecutor(@Value("${books.async.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize,
+                                                  @Value("${books.async.queue-capacity:200}") int queueCapacity,
+                                                  MeterRegistry meterRegistry) {
+        Timer waitTimer = Timer.builder(REQUEST_EXECUTOR_METRIC + ".wait")
+                .description("Time spent by the requests waiting for a worker")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("books-request-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setTaskDecorator(task -> {
+            long submitted = System.nanoTime();
+            return ReadYourWrites.propagate(() -> {
+                waitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                task.run();
+            });
+        });
+        return executor;
+    }
+
+    /**
+     * Executor running the import jobs, each job parses its file on one of these
+     * threads. Jobs beyond the queue capacity are rejected
+     */
+    @Bean(name = IMPORT_JOB_EXECUTOR)
+    public ThreadPoolTaskExecutor importJobExecutor(@Value("${books.import.max-concurrent-jobs:1}") int maxConcurrentJobs,
+                                                    @Value("${books.import.queue-capacity:16}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentJobs);
+        executor.setMaxPoolSize(maxConcurrentJobs);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("books-import-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * Executor validating and writing the chunks of the running import jobs, it
+     * has one thread per worker of every job that may run at the same time
+     */
+    @Bean(name = IMPORT_WORKER_EXECUTOR)
+    public ThreadPoolTaskExecutor importWorkerExecutor(@Value("${books.import.max-concurrent-jobs:1}") int maxConcurrentJobs,
+                                                       @Value("${books.import.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentJobs * parallelism);
+        executor.setMaxPoolSize(maxConcurrentJobs * parallelism);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("books-import-worker-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * Executor running the per-shard parts of the queries scattered to all the
+     * shards. It has no queue, when all its threads are busy the part runs on
+     * the calling thread, so nested scatters cannot wait on each other
+     */
+    @Bean(name = SHARD_EXECUTOR)
+    public ThreadPoolTaskExecutor shardExecutor(@Value("${books.shards.parallelism:16}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("books-shard-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(ReadYourWrites::propagate);
+        return executor;
+    }
+
+    /**
+     * Publishes the pool size, active threads and queue depth of the request executor
+     */
+    @Bean
+    public MeterBinder requestExecutorMetrics(@Qualifier(REQUEST_EXECUTOR) ThreadPoolTaskExecutor requestExecutor) {
+        return registry -> new ExecutorServiceMetrics(requestExecutor.getThreadPoolExecutor(),
+                REQUEST_EXECUTOR_METRIC, Collections.emptyList()).bindTo(registry);
+    }
+}
@@ -0,0 +1,82 @@
+package com.bookservice.config;
+
+import com.bookservice.constants.StringConstants;
+import com.bookservice.metrics.TimedBinaryHttpMessageConverter;
+import com.bookservice.metrics.TimedJsonHttpMessageConverter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+
+/**
+ * Class containing the Jackson customizations. Module beans are registered
+ * on the auto-configured ObjectMapper by Spring Boot. Besides JSON, the bodies
+ * can be exchanged as Smile or CBOR, selected through the Accept and
+ * Content-Type headers; their ObjectMappers go through the same customizers
+ *
+ * @author NIHARIKA GADDE
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private List<Jackson2ObjectMapperBuilderCustomizer> customizers;
+
+    /**
+     * Replaces the reflective property accessors of the bean (de)serializers
+     * with generated bytecode
+     */
+    @Bean
+    public Module afterburnerModule() {
+        return new AfterburnerModule();
+    }
+
+    /**
+     * JSON message converter timing the serialization of the responses, it
+     * replaces the one auto-configured by Spring Boot
+     */
+    @Bean
+    public TimedJsonHttpMessageConverter timedJsonHttpMessageConverter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        return new TimedJsonHttpMessageConverter(objectMapper, meterRegistry);
+    }
+
+    /**
+     * Smile (binary JSON) message converter, for application/x-jackson-smile
+     */
+    @Bean
+    public TimedBinaryHttpMessageConverter smileHttpMessageConverter(MeterRegistry meterRegistry) {
+        return new TimedBinaryHttpMessageConverter(binaryObjectMapper(new SmileFactory()), meterRegistry,
+                "smile", MediaType.parseMediaType(StringConstants.APPLICATION_SMILE_VALUE));
+    }
+
+    /**
+     * CBOR (RFC 7049) message converter, for application/cbor
+     */
+    @Bean
+    public TimedBinaryHttpMessageConverter cborHttpMessageConverter(MeterRegistry meterRegistry) {
+        return new TimedBinaryHttpMessageConverter(binaryObjectMapper(new CBORFactory()), meterRegistry,
+                "cbor", MediaType.parseMediaType(StringConstants.APPLICATION_CBOR_VALUE));
+    }
+
+    private ObjectMapper binaryObjectMapper(JsonFactory factory) {
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder()
+                .applicationContext(this.applicationContext);
+        this.customizers.forEach(customizer -> customizer.customize(builder));
+        return builder.factory(factory).build();
+    }
+}
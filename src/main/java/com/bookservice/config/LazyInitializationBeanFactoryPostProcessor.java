@@ -0,0 +1,45 @@
+package com.bookservice.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.core.Ordered;
+
+/**
+ * Marks the bean definitions as lazy, so that beans are created when they are
+ * first used instead of during the refresh of the context. Definitions that
+ * set their lazy-init explicitly are left as they are, and so are the
+ * infrastructure beans and the beans that need the end of the refresh to
+ * initialize (SmartInitializingSingleton). Spring Boot 2.1 has no
+ * spring.main.lazy-initialization, this is its equivalent
+ *
+ * @author NIHARIKA GADDE
+ */
+public class LazyInitializationBeanFactoryPostProcessor implements BeanFactoryPostProcessor, Ordered {
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition beanDefinition = beanFactory.getBeanDefinition(beanName);
+            if (beanDefinition instanceof AbstractBeanDefinition
+                    && null == ((AbstractBeanDefinition) beanDefinition).getLazyInit()
+                    && BeanDefinition.ROLE_INFRASTRUCTURE != beanDefinition.getRole()
+                    && !isSmartInitializingSingleton(beanFactory, beanName)) {
+                beanDefinition.setLazyInit(true);
+            }
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private static boolean isSmartInitializingSingleton(ConfigurableListableBeanFactory beanFactory, String beanName) {
+        Class<?> beanType = beanFactory.getType(beanName);
+        return null != beanType && SmartInitializingSingleton.class.isAssignableFrom(beanType);
+    }
+}
@@ -0,0 +1,22 @@
+package com.bookservice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Class containing the startup settings. With books.startup.lazy-initialization
+ * the beans are created on first use, the warm-up then creates the ones that
+ * serve the requests before the service reports itself ready
+ *
+ * @author NIHARIKA GADDE
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "books.startup.lazy-initialization", havingValue = "true")
+    public static LazyInitializationBeanFactoryPostProcessor lazyInitializationBeanFactoryPostProcessor() {
+        return new LazyInitializationBeanFactoryPostProcessor();
+    }
+}
@@ -3,6 +3,7 @@ package com.bookservice.config;
 import com.bookservice.constants.StringConstants;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.bind.annotation.RestController;
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
@@ -14,10 +15,12 @@ import springfox.documentation.spring.web.plugins.Docket;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
 /**
- * Class containing the configurations required for Swagger
+ * Class containing the configurations required for Swagger. The springfox
+ * scanning of the endpoints is left out of the prod profile
  * @author NIHARIKA GADDE
  */
 @Configuration
+@Profile("!prod")
 @EnableSwagger2
 public class SwaggerConfig {
 
@@ -0,0 +1,50 @@
+package com.bookservice.config;
+
+import com.bookservice.ratelimit.RateLimitInterceptor;
+import com.bookservice.routing.ReadYourWritesInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Class containing the Spring MVC configurations
+ *
+ * @author NIHARIKA GADDE
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    @Qualifier(ExecutorConfig.REQUEST_EXECUTOR)
+    private ThreadPoolTaskExecutor requestExecutor;
+
+    @Autowired
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    @Autowired
+    private ObjectProvider<ReadYourWritesInterceptor> readYourWritesInterceptor;
+
+    /**
+     * Streaming responses run on the bounded request executor as well
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(this.requestExecutor);
+    }
+
+    /**
+     * Rate and concurrency limits apply to the book endpoints only, as does the
+     * pinning of the clients to the primary when there are replicas
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this.rateLimitInterceptor).addPathPatterns("/books/**");
+        this.readYourWritesInterceptor.ifAvailable(interceptor ->
+                registry.addInterceptor(interceptor).addPathPatterns("/books/**"));
+    }
+}
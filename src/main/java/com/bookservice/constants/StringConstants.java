@@ -13,6 +13,13 @@ public class StringConstants {
     public static final String AUTHOR_EMAIL = "gaddeniharika88@outlook.com";
     public static final String APACHE_LICENSE = "Apache License Version 2.0";
     public static final String LICENSE_URL = "https://www.apache.org/licenses/LICENSE-2.0";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String MISSING_BOOK_IDS_HEADER = "X-Missing-Book-Ids";
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final String APPLICATION_CBOR_VALUE = "application/cbor";
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    public static final String API_KEY_HEADER = "X-API-Key";
 
     private StringConstants() {
         throw new IllegalStateException("Class containing String Constants");
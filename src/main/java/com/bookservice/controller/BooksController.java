@@ -1,25 +1,69 @@
 package com.bookservice.controller;
 
+import com.bookservice.cache.CatalogueVersion;
+import com.bookservice.changelog.BookChangeLog;
+import com.bookservice.config.ExecutorConfig;
 import com.bookservice.constants.StringConstants;
-import com.bookservice.exception.BookNotFoundException;
-import com.bookservice.exception.NoBooksFoundException;
+import com.bookservice.dto.BatchResultDTO;
+import com.bookservice.dto.BookChangeDTO;
+import com.bookservice.dto.BookFilterDTO;
+import com.bookservice.dto.BookPatchDTO;
+import com.bookservice.dto.BookSearchResultDTO;
+import com.bookservice.dto.BookSelectionDTO;
+import com.bookservice.dto.BookStatsDTO;
+import com.bookservice.dto.ImportJobDTO;
+import com.bookservice.exception.InvalidBookDataException;
+import com.bookservice.exception.InvalidRequestException;
 import com.bookservice.dto.BookDTO;
+import com.bookservice.ratelimit.RequestCost;
+import com.bookservice.repository.BookGroupField;
+import com.bookservice.repository.BookKeyset;
+import com.bookservice.repository.BookSortField;
+import com.bookservice.routing.ReadOnlyRequest;
+import com.bookservice.search.BookSearchIndex;
+import com.bookservice.service.BookStatsService;
+import com.bookservice.service.BooksBatchService;
 import com.bookservice.service.BooksService;
+import com.bookservice.transfer.BookExportService;
+import com.bookservice.transfer.BookImportService;
+import com.bookservice.transfer.BookTransferFormat;
 import com.bookservice.util.ControllersUtil;
+import com.bookservice.util.ListResponseWriter;
+import com.bookservice.util.NdjsonWriter;
+import com.bookservice.util.Utils;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.*;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
- * Class Containing all apis related to book operation
+ * Class Containing all apis related to book operation. Unless the async mode is
+ * disabled, the work of every request is handed to the bounded request executor
+ * and the Tomcat worker thread is released right away
  *
  * @author NIHARIKA GADDE
  */
@@ -32,56 +76,342 @@ public class BooksController {
     @Autowired
     private BooksService bookService;
 
+    @Autowired
+    private BooksBatchService booksBatchService;
+
+    @Autowired
+    private BookStatsService bookStatsService;
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookExportService bookExportService;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private CatalogueVersion catalogueVersion;
+
+    @Autowired
+    private BookChangeLog bookChangeLog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ListResponseWriter listResponseWriter;
+
+    @Autowired
+    @Qualifier(ExecutorConfig.REQUEST_EXECUTOR)
+    private Executor requestExecutor;
+
+    @Value("${books.async.enabled:true}")
+    private boolean asyncEnabled;
+
+    @Value("${books.page.default-limit:100}")
+    private int defaultPageLimit;
+
+    @Value("${books.page.max-limit:1000}")
+    private int maxPageLimit;
+
+    @Value("${books.search.max-page-size:100}")
+    private int maxSearchPageSize;
+
+    @Value("${books.select.max-ids:1000}")
+    private int maxSelectIds;
+
+    @Value("${books.changes.max-wait-seconds:30}")
+    private long maxChangesWaitSeconds;
+
     /**
-     * Get all available books in the system
+     * Get a page of available books in the system, optionally filtered on author,
+     * genre, price range and published year and sorted on id, name, price or
+     * publishedYear. When the page is full, the cursor to continue from is
+     * returned in the X-Next-Cursor header and is sent back as the after
+     * parameter; it is the plain id of the last book when sorting on id. The
+     * response carries the ETag of the catalogue version, and a matching
+     * If-None-Match answers 304 without reading the database. The list is
+     * streamed in the format negotiated through the Accept header
      *
+     * @param after     cursor of the last book of the previous page
+     * @param limit     maximum number of books in the page
+     * @param author    exact author of the books
+     * @param genre     exact genre of the books
+     * @param minPrice  minimum price of the books
+     * @param maxPrice  maximum price of the books
+     * @param year      published year of the books
+     * @param sort      sorted attribute
+     * @param direction asc or desc
      * @return List of BookDTOs {@link BookDTO}
      */
-    @ApiOperation(value = "View list of available books", response = Iterable.class)
+    @ApiOperation(value = "View a page of available books", response = Iterable.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully retrieved list"),
-            @ApiResponse(code = 204, message = "No books present in the database")
+            @ApiResponse(code = 204, message = "No books present in the database"),
+            @ApiResponse(code = 304, message = "The catalogue has not changed")
     }
     )
+    @RequestCost(10)
     @GetMapping
-    public ResponseEntity<List<BookDTO>> getAllBooks() {
-        List<BookDTO> books = this.bookService.findAll();
-        if (null != books && !books.isEmpty()) {
-            return ControllersUtil.getOkResponseEntity(books);
-        } else {
-            throw new NoBooksFoundException();
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getAllBooks(@ApiParam(value = "Cursor of the last book of the previous page") @RequestParam(value = "after", required = false) String after,
+                                                     @ApiParam(value = "Maximum number of books in the page") @RequestParam(value = "limit", required = false) Integer limit,
+                                                     @ApiParam(value = "Author of the books") @RequestParam(value = "author", required = false) String author,
+                                                     @ApiParam(value = "Genre of the books") @RequestParam(value = "genre", required = false) String genre,
+                                                     @ApiParam(value = "Minimum price of the books") @RequestParam(value = "minPrice", required = false) Double minPrice,
+                                                     @ApiParam(value = "Maximum price of the books") @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+                                                     @ApiParam(value = "Published year of the books") @RequestParam(value = "year", required = false) Integer year,
+                                                     @ApiParam(value = "Sorted attribute: id, name, price or publishedYear") @RequestParam(value = "sort", defaultValue = "id") String sort,
+                                                     @ApiParam(value = "Sort direction: asc or desc") @RequestParam(value = "direction", defaultValue = "asc") String direction,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                     @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        String eTag = this.catalogueVersion.getETag();
+        if (Utils.matchesETag(ifNoneMatch, eTag)) {
+            return CompletableFuture.completedFuture(ControllersUtil.getNotModifiedResponseEntity(eTag));
+        }
+        int pageLimit = null == limit || limit <= 0 ? this.defaultPageLimit : Math.min(limit, this.maxPageLimit);
+        BookFilterDTO filter = new BookFilterDTO(author, genre, minPrice, maxPrice, year);
+        BookSortField sortField;
+        try {
+            sortField = BookSortField.fromAttribute(sort);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidBookDataException(ex.getLocalizedMessage());
         }
+        boolean descending = "desc".equalsIgnoreCase(direction);
+        return async(() -> {
+            List<BookDTO> books;
+            if (filter.hasNoFilter() && BookSortField.ID == sortField && !descending) {
+                books = this.bookService.findPage(null == after ? null : parseCursorId(after), pageLimit);
+            } else {
+                books = this.bookService.findFiltered(filter, sortField, descending, after, pageLimit);
+            }
+            if (null != books && !books.isEmpty()) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setETag(eTag);
+                if (books.size() == pageLimit) {
+                    headers.set(StringConstants.NEXT_CURSOR_HEADER, BookKeyset.encode(sortField, books.get(books.size() - 1)));
+                }
+                return this.listResponseWriter.ok(books, accept, headers);
+            } else {
+                return ControllersUtil.getNoContentResponseEntity();
+            }
+        });
+    }
+
+    /**
+     * Stream all available books in the system as newline delimited JSON
+     *
+     * @return Stream of BookDTOs {@link BookDTO}, one per line
+     */
+    @ApiOperation(value = "Stream all available books as NDJSON")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully streamed list")
+    }
+    )
+    @RequestCost(value = 50, concurrencyLimited = false)
+    @GetMapping(value = "/stream", produces = StringConstants.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter writer = new NdjsonWriter(this.objectMapper, out)) {
+                this.bookService.streamAll(book -> {
+                    try {
+                        writer.write(book);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(StringConstants.APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    /**
+     * Get the changes made to the catalogue after the given cursor as newline
+     * delimited JSON, upserts with the current state of the book and deletes as
+     * tombstones. The cursor holds the last sequence number read from every
+     * shard, the one to continue from is returned in the X-Next-Cursor header.
+     * When there is no change yet and wait is set, the request is held until a
+     * change is committed or the wait elapses
+     *
+     * @param since cursor of the last changes already applied, 0 to read from the start
+     * @param limit maximum number of changes
+     * @param wait  seconds to wait for a change when there is none
+     * @return Stream of BookChangeDTOs {@link BookChangeDTO}, one per line
+     */
+    @ApiOperation(value = "Stream the changes of the catalogue as NDJSON")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully streamed changes"),
+            @ApiResponse(code = 204, message = "No change after the given cursor"),
+            @ApiResponse(code = 400, message = "The cursor is malformed")
+    }
+    )
+    @RequestCost(value = 2, concurrencyLimited = false)
+    @GetMapping(value = "/changes", produces = StringConstants.APPLICATION_NDJSON_VALUE)
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getChanges(@ApiParam(value = "Cursor of the last applied changes") @RequestParam(value = "since", defaultValue = "0") String since,
+                                                                              @ApiParam(value = "Maximum number of changes") @RequestParam(value = "limit", required = false) Integer limit,
+                                                                              @ApiParam(value = "Seconds to wait for a change") @RequestParam(value = "wait", defaultValue = "0") long wait) {
+        long[] sinceSeqs = this.bookChangeLog.parseCursor(since);
+        int changesLimit = null == limit || limit <= 0 ? this.defaultPageLimit : Math.min(limit, this.maxPageLimit);
+        long waitMillis = TimeUnit.SECONDS.toMillis(Math.min(Math.max(wait, 0), this.maxChangesWaitSeconds));
+        CompletableFuture<Void> nextChange = waitMillis > 0
+                ? this.bookChangeLog.awaitChange(waitMillis) : CompletableFuture.completedFuture(null);
+        return async(() -> this.bookChangeLog.findSince(sinceSeqs, changesLimit))
+                .thenCompose(page -> {
+                    if (!page.isExhausted() || waitMillis <= 0) {
+                        nextChange.complete(null);
+                        return CompletableFuture.completedFuture(page);
+                    }
+                    return nextChange.thenApplyAsync(
+                            ignored -> this.bookChangeLog.findSince(sinceSeqs, changesLimit), this.requestExecutor);
+                })
+                .thenApply(this::getChangesResponseEntity);
     }
 
     /**
-     * Get all books in the system from Book Ids
+     * Get all books in the system from Book Ids, in request order. Ids that are
+     * not found are listed in the X-Missing-Book-Ids header. The response carries
+     * the ETag of the catalogue version and the list is streamed in the format
+     * negotiated through the Accept header
      *
      * @return List of BookDTOs {@link BookDTO}
      */
     @ApiOperation(value = "Get books from list of book IDs", response = Iterable.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully retrieved list"),
-            @ApiResponse(code = 204, message = "No books present in the database")
+            @ApiResponse(code = 204, message = "No books present in the database"),
+            @ApiResponse(code = 304, message = "The catalogue has not changed"),
+            @ApiResponse(code = 400, message = "Too many or malformed book IDs")
     }
     )
+    @RequestCost(5)
     @GetMapping(value = "/select/{book_ids}")
-    public ResponseEntity<List<BookDTO>> getAllBooksFromIds(@ApiParam(value = "Book IDs that need to be fetched", required = true) @PathVariable("book_ids") String[] bookIds ) {
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getAllBooksFromIds(@ApiParam(value = "Book IDs that need to be fetched", required = true) @PathVariable("book_ids") String[] bookIds,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        String eTag = this.catalogueVersion.getETag();
+        if (Utils.matchesETag(ifNoneMatch, eTag)) {
+            return CompletableFuture.completedFuture(ControllersUtil.getNotModifiedResponseEntity(eTag));
+        }
+        checkSelectionSize(null == bookIds ? 0 : bookIds.length);
         List<Long> finalBookIds = new ArrayList<>();
         if (bookIds != null) {
             for (String bookId : bookIds) {
-                finalBookIds.add(Long.valueOf(bookId));
+                finalBookIds.add(parseBookId(bookId));
+            }
+        }
+        return async(() -> {
+            BookSelectionDTO selection = this.bookService.selectByIds(finalBookIds);
+            if (!selection.getBooks().isEmpty()) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setETag(eTag);
+                if (!selection.getMissingIds().isEmpty()) {
+                    headers.set(StringConstants.MISSING_BOOK_IDS_HEADER, StringUtils.join(selection.getMissingIds(), ','));
+                }
+                return this.listResponseWriter.ok(selection.getBooks(), accept, headers);
+            } else {
+                return ControllersUtil.getNoContentResponseEntity();
+            }
+        });
+    }
+
+    /**
+     * Get all books in the system from a list of Book Ids sent in the request
+     * body, for lists that are too long for a URL
+     *
+     * @param bookIds list of book ids
+     * @return Found books in request order and the missing ids {@link BookSelectionDTO}
+     */
+    @ApiOperation(value = "Get books from a list of book IDs sent in the body", response = BookSelectionDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved list"),
+            @ApiResponse(code = 204, message = "No books present in the database"),
+            @ApiResponse(code = 400, message = "Too many book IDs")
+    }
+    )
+    @RequestCost(5)
+    @ReadOnlyRequest
+    @PostMapping(value = "/select")
+    public CompletableFuture<ResponseEntity<BookSelectionDTO>> selectBooks(@ApiParam(value = "Book IDs that need to be fetched", required = true) @RequestBody List<Long> bookIds) {
+        checkSelectionSize(null == bookIds ? 0 : bookIds.size());
+        return async(() -> {
+            BookSelectionDTO selection = this.bookService.selectByIds(bookIds);
+            if (!selection.getBooks().isEmpty()) {
+                return ControllersUtil.getOkResponseEntity(selection);
+            } else {
+                return ControllersUtil.getNoContentResponseEntity();
             }
+        });
+    }
+
+    /**
+     * Get the count and price statistics of the books grouped on genre, author or
+     * publishedYear, with a price histogram per group. The statistics are
+     * computed by the database and kept until the catalogue changes. The response
+     * carries the ETag of the catalogue version
+     *
+     * @param groupBy     grouped attribute
+     * @param bucketWidth width of the price buckets
+     * @return Statistics of every group {@link BookStatsDTO}
+     */
+    @ApiOperation(value = "Get the statistics of the books grouped on an attribute", response = BookStatsDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully computed statistics"),
+            @ApiResponse(code = 304, message = "The catalogue has not changed"),
+            @ApiResponse(code = 400, message = "The bucket width is too small or not finite")
+    }
+    )
+    @RequestCost(5)
+    @GetMapping(value = "/stats")
+    public CompletableFuture<ResponseEntity<BookStatsDTO>> getStats(@ApiParam(value = "Grouped attribute: genre, author or publishedYear") @RequestParam(value = "groupBy", defaultValue = "genre") String groupBy,
+                                                                   @ApiParam(value = "Width of the price buckets") @RequestParam(value = "bucketWidth", defaultValue = "10") double bucketWidth,
+                                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = this.catalogueVersion.getETag();
+        if (Utils.matchesETag(ifNoneMatch, eTag)) {
+            return CompletableFuture.completedFuture(ControllersUtil.getNotModifiedResponseEntity(eTag));
         }
-        List<BookDTO> books = this.bookService.findByIdIn(finalBookIds);
-        if (null != books && !books.isEmpty()) {
-            return ControllersUtil.getOkResponseEntity(books);
-        } else {
-            throw new NoBooksFoundException();
+        BookGroupField groupField;
+        try {
+            groupField = BookGroupField.fromAttribute(groupBy);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidBookDataException(ex.getLocalizedMessage());
         }
+        return async(() -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setETag(eTag);
+            return ControllersUtil.getOkResponseEntity(this.bookStatsService.getStats(groupField, bucketWidth), headers);
+        });
+    }
+
+    /**
+     * Full text search over the name, author, genre and description of the books
+     *
+     * @param query free text query, the last word also matches as a prefix
+     * @param page  zero based page number
+     * @param size  page size
+     * @return Ranked page of matching books {@link BookSearchResultDTO}
+     */
+    @ApiOperation(value = "Search books by name, author, genre and description", response = BookSearchResultDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully searched books")
+    }
+    )
+    @RequestCost(5)
+    @GetMapping(value = "/search")
+    public CompletableFuture<ResponseEntity<BookSearchResultDTO>> searchBooks(@ApiParam(value = "Text to search for", required = true) @RequestParam("q") String query,
+                                                           @ApiParam(value = "Zero based page number") @RequestParam(value = "page", defaultValue = "0") int page,
+                                                           @ApiParam(value = "Page size") @RequestParam(value = "size", defaultValue = "20") int size) {
+        int pageSize = size <= 0 ? 1 : Math.min(size, this.maxSearchPageSize);
+        return async(() -> ControllersUtil.getOkResponseEntity(
+                this.bookSearchIndex.search(query, Math.max(page, 0), pageSize)));
     }
 
     /**
-     * Get an book from book id
+     * Get an book from book id. The response carries the ETag and Last-Modified
+     * of the book version, and a matching If-None-Match answers 304. When the
+     * cache knows the version of the book, the 304 is answered without loading it
      *
      * @param bookId
      * @return Found BookDTO {@link BookDTO}
@@ -89,14 +419,25 @@ public class BooksController {
     @ApiOperation(value = "Search an book with an ID", response = BookDTO.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully retrieved book"),
+            @ApiResponse(code = 304, message = "The book has not changed"),
             @ApiResponse(code = 404, message = "No book present in the database with the given ID")
     }
     )
     @GetMapping(value = "/{book_id}")
-    public ResponseEntity<BookDTO> getBook(@ApiParam(value = "Book's ID that need to be fetched", required = true) @PathVariable("book_id") Long bookId) {
-        Optional<BookDTO> book = this.bookService.findById(bookId);
-        return book.map(ControllersUtil::getOkResponseEntity)
-                .orElseThrow( BookNotFoundException::new);
+    public CompletableFuture<ResponseEntity<BookDTO>> getBook(@ApiParam(value = "Book's ID that need to be fetched", required = true) @PathVariable("book_id") Long bookId,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (null != ifNoneMatch) {
+            Optional<String> knownETag = this.bookService.findCachedVersion(bookId)
+                    .map(version -> Utils.getBookETag(bookId, version));
+            if (knownETag.isPresent() && Utils.matchesETag(ifNoneMatch, knownETag.get())) {
+                return CompletableFuture.completedFuture(ControllersUtil.getNotModifiedResponseEntity(knownETag.get()));
+            }
+        }
+        return async(() -> {
+            Optional<BookDTO> book = this.bookService.findById(bookId);
+            return book.map(foundBook -> getBookResponseEntity(foundBook, ifNoneMatch))
+                    .orElseGet(ControllersUtil::getNotFoundResponseEntity);
+        });
     }
 
     /**
@@ -111,15 +452,19 @@ public class BooksController {
             @ApiResponse(code = 500, message = "Some error happened during the operation")
     }
     )
+    @RequestCost(2)
     @PostMapping
-    public ResponseEntity<BookDTO> addBook(@ApiParam(value = "Book model that needs to be added", required = true) @Valid @RequestBody BookDTO book) {
-        Optional<BookDTO> savedBookDTO = this.bookService.save(book);
-        return savedBookDTO.map(ControllersUtil::getCreatedResponseEntity)
-                .orElseGet(ControllersUtil::getInternalServerErrorResponseEntity);
+    public CompletableFuture<ResponseEntity<BookDTO>> addBook(@ApiParam(value = "Book model that needs to be added", required = true) @Valid @RequestBody BookDTO book) {
+        return async(() -> {
+            Optional<BookDTO> savedBookDTO = this.bookService.save(book);
+            return savedBookDTO.map(ControllersUtil::getCreatedResponseEntity)
+                    .orElseGet(ControllersUtil::getInternalServerErrorResponseEntity);
+        });
     }
 
     /**
-     * Update an book using its book id
+     * Update an book using its book id. When an If-Match header is given, the
+     * book is only updated if it matches the current ETag of the book
      *
      * @param bookId and updated book {@link BookDTO} model
      * @return Updated BookDTO {@link BookDTO}
@@ -127,36 +472,343 @@ public class BooksController {
     @ApiOperation(value = "Update an book with an ID", response = BookDTO.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully updated book"),
+            @ApiResponse(code = 404, message = "No book present in the database with the given ID"),
+            @ApiResponse(code = 412, message = "The book has been modified since the given ETag"),
             @ApiResponse(code = 500, message = "Some error happened during the operation")
     }
     )
+    @RequestCost(2)
     @PutMapping(value = "/{book_id}")
-    public ResponseEntity<BookDTO> updateBook(@ApiParam(value = "Book's ID that need to be updated", required = true) @PathVariable("book_id") Long bookId,
-                                              @ApiParam(value = "Book model that needs to be updated", required = true) @Valid @RequestBody BookDTO book) {
-        Optional<BookDTO> updatedBookDTO = this.bookService.updateById(bookId, book);
-        return updatedBookDTO.map(ControllersUtil::getOkResponseEntity)
-                .orElseGet(ControllersUtil::getInternalServerErrorResponseEntity);
+    public CompletableFuture<ResponseEntity<BookDTO>> updateBook(@ApiParam(value = "Book's ID that need to be updated", required = true) @PathVariable("book_id") Long bookId,
+                                              @ApiParam(value = "Book model that needs to be updated", required = true) @Valid @RequestBody BookDTO book,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return async(() -> {
+            Optional<BookDTO> updatedBookDTO = this.bookService.updateById(bookId, book, ifMatch);
+            return updatedBookDTO.map(updatedBook -> getBookResponseEntity(updatedBook, null))
+                    .orElseGet(ControllersUtil::getNotFoundResponseEntity);
+        });
+    }
+
+    /**
+     * Partially update an book using its book id, only the fields present in the
+     * body are changed. When the write-behind buffer is enabled, an unconditional
+     * change of the price alone is buffered and acknowledged with 202, the new
+     * price is visible once the buffer is flushed
+     *
+     * @param bookId and the changed fields {@link BookPatchDTO}
+     * @return Updated BookDTO {@link BookDTO}, or no body if the update is buffered
+     */
+    @ApiOperation(value = "Partially update an book with an ID", response = BookDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully updated book"),
+            @ApiResponse(code = 202, message = "The new price is buffered and will be written shortly"),
+            @ApiResponse(code = 404, message = "No book present in the database with the given ID"),
+            @ApiResponse(code = 412, message = "The book has been modified since the given ETag"),
+            @ApiResponse(code = 500, message = "Some error happened during the operation")
+    }
+    )
+    @RequestCost(1)
+    @PatchMapping(value = "/{book_id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<BookDTO>> patchBook(@ApiParam(value = "Book's ID that need to be updated", required = true) @PathVariable("book_id") Long bookId,
+                                                                @ApiParam(value = "Fields of the book that need to be changed", required = true) @RequestBody BookPatchDTO patch,
+                                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        boolean bufferable = null == ifMatch && patch.isPriceOnly();
+        URI location = getBookLocation(bookId);
+        return async(() -> {
+            if (bufferable && this.bookService.bufferPriceUpdate(bookId, patch.getPrice())) {
+                return ControllersUtil.<BookDTO>getAcceptedResponseEntity(null, location);
+            }
+            return this.bookService.patchById(bookId, patch, ifMatch)
+                    .map(patchedBook -> getBookResponseEntity(patchedBook, null))
+                    .orElseGet(ControllersUtil::getNotFoundResponseEntity);
+        });
     }
 
     /**
      * Delete an book using its book id
      *
      * @param bookId
-     * @return HttpStatus 200 on Successful Delete
+     * @return HttpStatus 200 on Successful Delete, 404 if the book is not found
      */
     @ApiOperation(value = "Delete an book with an ID", response = HttpStatus.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully deleted book"),
+            @ApiResponse(code = 404, message = "No book present in the database with the given ID"),
             @ApiResponse(code = 500, message = "Some error happened during the operation")
     }
     )
+    @RequestCost(2)
     @DeleteMapping(value = "/{book_id}")
-    public HttpStatus deleteBook(@ApiParam(value = "Book's ID that need to be deleted", required = true) @PathVariable("book_id") Long bookId) {
+    public CompletableFuture<ResponseEntity<HttpStatus>> deleteBook(@ApiParam(value = "Book's ID that need to be deleted", required = true) @PathVariable("book_id") Long bookId) {
         if (null != bookId) {
-            this.bookService.deleteById(bookId);
-            return HttpStatus.OK;
+            return async(() -> 0 < this.bookService.deleteById(bookId)
+                    ? ControllersUtil.getOkResponseEntity(HttpStatus.OK)
+                    : ControllersUtil.getNotFoundResponseEntity());
         }
-        return HttpStatus.INTERNAL_SERVER_ERROR;
+        return CompletableFuture.completedFuture(ControllersUtil.getInternalServerErrorResponseEntity());
+    }
+
+    /**
+     * Add new books in bulk
+     *
+     * @param books list of {@link BookDTO} models
+     * @return Report with one result per book {@link BatchResultDTO}
+     */
+    @ApiOperation(value = "Add new books in bulk", response = BatchResultDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Batch processed, see the per item results")
+    }
+    )
+    @RequestCost(20)
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<BatchResultDTO>> addBooks(@ApiParam(value = "Book models that need to be added", required = true) @RequestBody List<BookDTO> books) {
+        return async(() -> ControllersUtil.getOkResponseEntity(this.booksBatchService.saveAll(books.iterator())));
+    }
+
+    /**
+     * Add new books in bulk from a newline delimited JSON stream
+     *
+     * @param request request whose body holds one {@link BookDTO} per line
+     * @return Report with one result per book {@link BatchResultDTO}
+     */
+    @ApiOperation(value = "Add new books in bulk from an NDJSON stream", response = BatchResultDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Batch processed, see the per item results")
+    }
+    )
+    @RequestCost(value = 50, concurrencyLimited = false)
+    @PostMapping(value = "/batch", consumes = StringConstants.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BatchResultDTO> addBooksStream(HttpServletRequest request) throws IOException {
+        try (MappingIterator<BookDTO> books = readBooks(request)) {
+            return ControllersUtil.getOkResponseEntity(this.booksBatchService.saveAll(books));
+        }
+    }
+
+    /**
+     * Update existing books in bulk, every book must carry its id
+     *
+     * @param books list of {@link BookDTO} models
+     * @return Report with one result per book {@link BatchResultDTO}
+     */
+    @ApiOperation(value = "Update existing books in bulk", response = BatchResultDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Batch processed, see the per item results")
+    }
+    )
+    @RequestCost(20)
+    @PutMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<BatchResultDTO>> updateBooks(@ApiParam(value = "Book models that need to be updated", required = true) @RequestBody List<BookDTO> books) {
+        return async(() -> ControllersUtil.getOkResponseEntity(this.booksBatchService.updateAll(books.iterator())));
+    }
+
+    /**
+     * Update existing books in bulk from a newline delimited JSON stream
+     *
+     * @param request request whose body holds one {@link BookDTO} per line
+     * @return Report with one result per book {@link BatchResultDTO}
+     */
+    @ApiOperation(value = "Update existing books in bulk from an NDJSON stream", response = BatchResultDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Batch processed, see the per item results")
+    }
+    )
+    @RequestCost(value = 50, concurrencyLimited = false)
+    @PutMapping(value = "/batch", consumes = StringConstants.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BatchResultDTO> updateBooksStream(HttpServletRequest request) throws IOException {
+        try (MappingIterator<BookDTO> books = readBooks(request)) {
+            return ControllersUtil.getOkResponseEntity(this.booksBatchService.updateAll(books));
+        }
+    }
+
+    /**
+     * Delete existing books in bulk
+     *
+     * @param bookIds list of book ids
+     * @return Report with one result per id {@link BatchResultDTO}
+     */
+    @ApiOperation(value = "Delete existing books in bulk", response = BatchResultDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Batch processed, see the per item results")
+    }
+    )
+    @RequestCost(20)
+    @DeleteMapping(value = "/batch")
+    public CompletableFuture<ResponseEntity<BatchResultDTO>> deleteBooks(@ApiParam(value = "Book IDs that need to be deleted", required = true) @RequestBody List<Long> bookIds) {
+        return async(() -> ControllersUtil.getOkResponseEntity(this.booksBatchService.deleteAll(bookIds)));
+    }
+
+    /**
+     * Import books in bulk from a CSV (with a header row) or NDJSON file. The file
+     * is spooled and imported in the background, the returned job is polled at
+     * the location of the response
+     *
+     * @param request request whose body holds the file
+     * @return Status of the import job {@link ImportJobDTO}
+     */
+    @ApiOperation(value = "Import books in bulk from a CSV or NDJSON file", response = ImportJobDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 202, message = "File accepted, poll the import job for the outcome"),
+            @ApiResponse(code = 503, message = "Too many import jobs are queued")
+    }
+    )
+    @RequestCost(value = 50, concurrencyLimited = false)
+    @PostMapping(value = "/import", consumes = {StringConstants.TEXT_CSV_VALUE, StringConstants.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportJobDTO> importBooks(HttpServletRequest request) throws IOException {
+        BookTransferFormat format = BookTransferFormat.fromMediaType(MediaType.parseMediaType(request.getContentType()));
+        ImportJobDTO job = this.bookImportService.submit(format, request.getInputStream());
+        return ControllersUtil.getAcceptedResponseEntity(job, getImportJobLocation(job.getId()));
+    }
+
+    /**
+     * Get the status of an import job, with the rows rejected so far
+     *
+     * @param jobId id of the import job
+     * @return Status of the import job {@link ImportJobDTO}
+     */
+    @ApiOperation(value = "Get the status of an import job", response = ImportJobDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved the import job"),
+            @ApiResponse(code = 404, message = "The import job is not found")
+    }
+    )
+    @RequestCost(1)
+    @GetMapping(value = "/import/{job_id}")
+    public ResponseEntity<ImportJobDTO> getImportJob(@ApiParam(value = "Import job ID", required = true) @PathVariable("job_id") String jobId) {
+        return this.bookImportService.getJob(jobId)
+                .map(ControllersUtil::getOkResponseEntity)
+                .orElseGet(ControllersUtil::getNotFoundResponseEntity);
+    }
+
+    /**
+     * Resume a failed import job, the rows already imported are skipped
+     *
+     * @param jobId id of the import job
+     * @return Status of the import job {@link ImportJobDTO}
+     */
+    @ApiOperation(value = "Resume a failed import job", response = ImportJobDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 202, message = "Job queued again, poll it for the outcome"),
+            @ApiResponse(code = 404, message = "The import job is not found")
+    }
+    )
+    @RequestCost(2)
+    @PostMapping(value = "/import/{job_id}/resume")
+    public ResponseEntity<ImportJobDTO> resumeImportJob(@ApiParam(value = "Import job ID", required = true) @PathVariable("job_id") String jobId) {
+        return this.bookImportService.resume(jobId)
+                .map(job -> ControllersUtil.getAcceptedResponseEntity(job, getImportJobLocation(jobId)))
+                .orElseGet(ControllersUtil::getNotFoundResponseEntity);
+    }
+
+    /**
+     * Export every book of the catalogue as a CSV (with a header row) or NDJSON
+     * file, streamed from a database cursor
+     *
+     * @param format csv or ndjson
+     * @return File of the books {@link BookDTO}
+     */
+    @ApiOperation(value = "Export all books as a CSV or NDJSON file")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully streamed the file")
+    }
+    )
+    @RequestCost(value = 50, concurrencyLimited = false)
+    @GetMapping(value = "/export")
+    public ResponseEntity<StreamingResponseBody> exportBooks(@ApiParam(value = "File format: csv or ndjson") @RequestParam(value = "format", defaultValue = "csv") String format) {
+        BookTransferFormat transferFormat;
+        try {
+            transferFormat = BookTransferFormat.fromExtension(format);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidBookDataException(ex.getLocalizedMessage());
+        }
+        StreamingResponseBody body = out -> this.bookExportService.export(transferFormat, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"books." + transferFormat.getExtension() + "\"")
+                .contentType(transferFormat.getMediaType())
+                .body(body);
+    }
+
+    /**
+     * Runs the given work on the request executor, or on the calling thread when
+     * the async mode is disabled. A saturated executor rejects the work right away
+     */
+    private <T> CompletableFuture<T> async(Supplier<T> work) {
+        if (!this.asyncEnabled) {
+            return CompletableFuture.completedFuture(work.get());
+        }
+        return CompletableFuture.supplyAsync(work, this.requestExecutor);
+    }
+
+    private static URI getBookLocation(Long bookId) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/books/{book_id}")
+                .buildAndExpand(bookId)
+                .toUri();
+    }
+
+    private static URI getImportJobLocation(String jobId) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/books/import/{job_id}")
+                .buildAndExpand(jobId)
+                .toUri();
+    }
+
+    private void checkSelectionSize(int count) {
+        if (count > this.maxSelectIds) {
+            throw new InvalidRequestException("At most " + this.maxSelectIds + " book ids can be selected at once");
+        }
+    }
+
+    private static Long parseBookId(String bookId) {
+        try {
+            return Long.valueOf(bookId.trim());
+        } catch (NumberFormatException ex) {
+            throw new InvalidRequestException("Invalid book id: " + bookId);
+        }
+    }
+
+    private static Long parseCursorId(String after) {
+        try {
+            return Long.valueOf(after);
+        } catch (NumberFormatException ex) {
+            throw new InvalidBookDataException("Invalid cursor: " + after);
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> getChangesResponseEntity(BookChangeLog.Page page) {
+        List<BookChangeDTO> changes = page.getChanges();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(StringConstants.NEXT_CURSOR_HEADER, page.getNextCursor());
+        if (changes.isEmpty()) {
+            return new ResponseEntity<>(headers, HttpStatus.NO_CONTENT);
+        }
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter writer = new NdjsonWriter(this.objectMapper, out)) {
+                for (BookChangeDTO change : changes) {
+                    writer.write(change);
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .headers(headers)
+                .contentType(MediaType.parseMediaType(StringConstants.APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    private static ResponseEntity<BookDTO> getBookResponseEntity(BookDTO book, String ifNoneMatch) {
+        String eTag = Utils.getBookETag(book.getId(), book.getVersion());
+        if (Utils.matchesETag(ifNoneMatch, eTag)) {
+            return ControllersUtil.getNotModifiedResponseEntity(eTag);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+        if (null != book.getLastModified()) {
+            headers.setLastModified(book.getLastModified().toEpochMilli());
+        }
+        return ControllersUtil.getOkResponseEntity(book, headers);
+    }
+
+    private MappingIterator<BookDTO> readBooks(HttpServletRequest request) throws IOException {
+        return this.objectMapper.readerFor(BookDTO.class).readValues(request.getInputStream());
     }
 
 }
@@ -2,16 +2,26 @@ package com.bookservice.controller.advice;
 
 import com.bookservice.exception.BookNotFoundException;
 import com.bookservice.exception.InvalidBookDataException;
+import com.bookservice.exception.InvalidRequestException;
 import com.bookservice.exception.NoBooksFoundException;
+import com.bookservice.exception.PreconditionFailedException;
+import com.bookservice.exception.RateLimitExceededException;
 import com.bookservice.dto.ErrorDto;
+import com.bookservice.metrics.BookMetrics;
+import com.bookservice.metrics.MissRecorder;
 import com.bookservice.util.ControllersUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import java.util.concurrent.RejectedExecutionException;
+
 import static org.springframework.core.Ordered.HIGHEST_PRECEDENCE;
 
 /**
@@ -24,16 +34,27 @@ import static org.springframework.core.Ordered.HIGHEST_PRECEDENCE;
 @ControllerAdvice
 public class RestExceptionHandler {
 
+    @Autowired
+    private BookMetrics bookMetrics;
+
+    @Autowired
+    private MissRecorder missRecorder;
+
+    @Value("${books.async.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
     /**
      * Handling Book Not Found Exception. This exception is thrown when the book
-     * of a particular id is not found in the system
+     * of a particular id is not found in the system. Misses are expected, they are
+     * counted and only logged by sample
      *
      * @return ResponseEntity with not value and status as 404
      */
     @ExceptionHandler(BookNotFoundException.class)
     protected ResponseEntity<Object> bookNotFoundHandler(
             BookNotFoundException ex) {
-        log.error(ex.getLocalizedMessage());
+        this.missRecorder.recordMiss("bookNotFound", MissRecorder.SOURCE_DATABASE, ex.getLocalizedMessage());
+        this.bookMetrics.countError(ex);
         return ControllersUtil.getNotFoundResponseEntity();
     }
 
@@ -46,7 +67,8 @@ public class RestExceptionHandler {
     @ExceptionHandler(NoBooksFoundException.class)
     protected ResponseEntity<Object> noBooksFoundHandler(
             NoBooksFoundException ex) {
-        log.error(ex.getLocalizedMessage());
+        this.missRecorder.recordMiss("noBooksFound", MissRecorder.SOURCE_DATABASE, ex.getLocalizedMessage());
+        this.bookMetrics.countError(ex);
         return ControllersUtil.getNoContentResponseEntity();
     }
 
@@ -59,6 +81,7 @@ public class RestExceptionHandler {
     @ExceptionHandler(InvalidBookDataException.class)
     protected ResponseEntity<ErrorDto> invalidBookDataHandler(InvalidBookDataException ex) {
         log.error(ex.getLocalizedMessage());
+        this.bookMetrics.countError(ex);
         return ControllersUtil.getInternalServerErrorResponseEntity(ex);
     }
 
@@ -71,6 +94,61 @@ public class RestExceptionHandler {
     @ExceptionHandler(MethodArgumentNotValidException.class)
     protected ResponseEntity<ErrorDto> invalidBookDataHandler(MethodArgumentNotValidException ex) {
         log.error(ex.getLocalizedMessage());
+        this.bookMetrics.countError(ex);
         return ControllersUtil.getInternalServerErrorResponseEntity(ex);
     }
+
+    /**
+     * Handling Invalid Request Exception. This exception is thrown when a request
+     * parameter is out of the accepted range, e.g. too many ids
+     *
+     * @return ResponseEntity with Error DTO and status as 400
+     */
+    @ExceptionHandler(InvalidRequestException.class)
+    protected ResponseEntity<ErrorDto> invalidRequestHandler(InvalidRequestException ex) {
+        log.warn(ex.getLocalizedMessage());
+        this.bookMetrics.countError(ex);
+        return ControllersUtil.getBadRequestResponseEntity(ex);
+    }
+
+    /**
+     * Handling Precondition Failed Exception. This exception is thrown when the
+     * If-Match header of an update does not match the current version of the book,
+     * or when the book is modified concurrently
+     *
+     * @return ResponseEntity with Error DTO and status as 412
+     */
+    @ExceptionHandler({PreconditionFailedException.class, OptimisticLockingFailureException.class})
+    protected ResponseEntity<ErrorDto> preconditionFailedHandler(RuntimeException ex) {
+        log.error(ex.getLocalizedMessage());
+        this.bookMetrics.countError(ex);
+        return ControllersUtil.getPreconditionFailedResponseEntity(ex);
+    }
+
+    /**
+     * Handling Rate Limit Exceeded Exception. This exception is thrown when a
+     * client has used up the tokens of an endpoint
+     *
+     * @return ResponseEntity with Error DTO, a Retry-After header and status as 429
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    protected ResponseEntity<ErrorDto> rateLimitExceededHandler(RateLimitExceededException ex) {
+        log.warn(ex.getLocalizedMessage());
+        this.bookMetrics.countError(ex);
+        return ControllersUtil.getTooManyRequestsResponseEntity(ex, ex.getRetryAfterSeconds());
+    }
+
+    /**
+     * Handling Rejected Execution Exception. This exception is thrown when the
+     * request executor is saturated and its queue is full, or when the adaptive
+     * limit of the requests in flight is reached
+     *
+     * @return ResponseEntity with Error DTO, a Retry-After header and status as 503
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    protected ResponseEntity<ErrorDto> requestRejectedHandler(RejectedExecutionException ex) {
+        log.warn(ex.getLocalizedMessage());
+        this.bookMetrics.countError(ex);
+        return ControllersUtil.getServiceUnavailableResponseEntity(ex, this.retryAfterSeconds);
+    }
 }
@@ -0,0 +1,36 @@
+package com.bookservice.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a single item of a batch operation
+ *
+ * @author NIHARIKA GADDE
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchItemResultDTO {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, INVALID, NOT_FOUND, FAILED
+    }
+
+    @ApiModelProperty(notes = "The position of the item in the request")
+    private int index;
+
+    @ApiModelProperty(notes = "The book ID the item refers to")
+    private Long id;
+
+    @ApiModelProperty(notes = "The outcome of the item")
+    private Status status;
+
+    @ApiModelProperty(notes = "The reason why the item was not applied")
+    private String message;
+
+}
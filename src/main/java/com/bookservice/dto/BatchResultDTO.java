@@ -0,0 +1,37 @@
+package com.bookservice.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Report of a batch operation, with one result per submitted item
+ *
+ * @author NIHARIKA GADDE
+ */
+@Data
+@NoArgsConstructor
+public class BatchResultDTO {
+
+    @ApiModelProperty(notes = "Number of items that were applied")
+    private int succeeded;
+
+    @ApiModelProperty(notes = "Number of items that were rejected or failed")
+    private int failed;
+
+    @ApiModelProperty(notes = "Result of every item, in request order")
+    private List<BatchItemResultDTO> items = new ArrayList<>();
+
+    public void addSuccess(int index, Long id, BatchItemResultDTO.Status status) {
+        this.succeeded++;
+        this.items.add(new BatchItemResultDTO(index, id, status, null));
+    }
+
+    public void addFailure(int index, Long id, BatchItemResultDTO.Status status, String message) {
+        this.failed++;
+        this.items.add(new BatchItemResultDTO(index, id, status, message));
+    }
+}
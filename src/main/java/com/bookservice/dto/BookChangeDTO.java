@@ -0,0 +1,41 @@
+package com.bookservice.dto;
+
+import com.bookservice.event.BookChangedEvent;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Entry of the change log of the catalogue
+ *
+ * @author NIHARIKA GADDE
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookChangeDTO {
+
+    @ApiModelProperty(notes = "The shard of the changed book")
+    private Integer shard;
+
+    @ApiModelProperty(notes = "The sequence number of the change, increasing in commit order within its shard")
+    private Long seq;
+
+    @ApiModelProperty(notes = "The type of the change, UPSERT or DELETE")
+    private BookChangedEvent.Type type;
+
+    @ApiModelProperty(notes = "The ID of the changed book")
+    private Long bookId;
+
+    @ApiModelProperty(notes = "The time of the change")
+    private Instant changedAt;
+
+    @ApiModelProperty(notes = "The current state of the book, absent for a DELETE")
+    private BookDTO book;
+
+}
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import java.time.Instant;
 
 /**
  * Book DTO
@@ -42,8 +43,14 @@ public class BookDTO {
     private Double price;
 
     @ApiModelProperty(notes = "The published year of the book", required = true)
-    @NotBlank(message = "The published year of the book must not be blank!")
-    private String publishedYear;
+    @NotNull(message = "The published year of the book must not be null!")
+    private Integer publishedYear;
+
+    @ApiModelProperty(notes = "The version of the book, incremented on every update")
+    private Long version;
+
+    @ApiModelProperty(notes = "The last modification time of the book")
+    private Instant lastModified;
 
 }
 
@@ -0,0 +1,42 @@
+package com.bookservice.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filters of the book list, every filter that is set must match
+ *
+ * @author NIHARIKA GADDE
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookFilterDTO {
+
+    @ApiModelProperty(notes = "The exact author of the books")
+    private String author;
+
+    @ApiModelProperty(notes = "The exact genre of the books")
+    private String genre;
+
+    @ApiModelProperty(notes = "The minimum price of the books, inclusive")
+    private Double minPrice;
+
+    @ApiModelProperty(notes = "The maximum price of the books, inclusive")
+    private Double maxPrice;
+
+    @ApiModelProperty(notes = "The published year of the books")
+    private Integer year;
+
+    /**
+     * @return true if no filter is set
+     */
+    public boolean hasNoFilter() {
+        return null == author && null == genre && null == minPrice && null == maxPrice && null == year;
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.bookservice.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statistics of the books sharing the same value of the grouped attribute
+ *
+ * @author NIHARIKA GADDE
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookGroupStatsDTO {
+
+    @ApiModelProperty(notes = "The value of the grouped attribute")
+    private Object key;
+
+    @ApiModelProperty(notes = "The number of books")
+    private Long count;
+
+    @ApiModelProperty(notes = "The lowest price of the books")
+    private Double minPrice;
+
+    @ApiModelProperty(notes = "The highest price of the books")
+    private Double maxPrice;
+
+    @ApiModelProperty(notes = "The average price of the books")
+    private Double avgPrice;
+
+    @ApiModelProperty(notes = "The number of books per price bucket")
+    private List<PriceBucketDTO> histogram = new ArrayList<>();
+
+    /**
+     * Constructor used by the aggregate query, the histogram is added afterwards
+     */
+    public BookGroupStatsDTO(Object key, Long count, Double minPrice, Double maxPrice, Double avgPrice) {
+        this(key, count, minPrice, maxPrice, avgPrice, new ArrayList<>());
+    }
+
+}
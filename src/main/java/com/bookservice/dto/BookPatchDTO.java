@@ -0,0 +1,45 @@
+package com.bookservice.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Book Patch DTO, only the fields that are not null are changed
+ *
+ * @author NIHARIKA GADDE
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookPatchDTO {
+
+    @ApiModelProperty(notes = "The new name of the book")
+    private String name;
+
+    @ApiModelProperty(notes = "The new author of the book")
+    private String author;
+
+    @ApiModelProperty(notes = "The new genre of the book")
+    private String genre;
+
+    @ApiModelProperty(notes = "The new description of the book")
+    private String description;
+
+    @ApiModelProperty(notes = "The new price of the book")
+    private Double price;
+
+    @ApiModelProperty(notes = "The new published year of the book")
+    private Integer publishedYear;
+
+    /**
+     * @return true if the patch changes the price and nothing else
+     */
+    public boolean isPriceOnly() {
+        return null != this.price && null == this.name && null == this.author && null == this.genre
+                && null == this.description && null == this.publishedYear;
+    }
+}
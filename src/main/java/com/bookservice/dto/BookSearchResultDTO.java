@@ -0,0 +1,32 @@
+package com.bookservice.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page of books matching a search query, ordered by relevance
+ *
+ * @author NIHARIKA GADDE
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookSearchResultDTO {
+
+    @ApiModelProperty(notes = "Total number of books matching the query")
+    private long totalHits;
+
+    @ApiModelProperty(notes = "The zero based page number")
+    private int page;
+
+    @ApiModelProperty(notes = "The page size")
+    private int size;
+
+    @ApiModelProperty(notes = "The matching books of the page")
+    private List<BookDTO> books;
+
+}
@@ -0,0 +1,26 @@
+package com.bookservice.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Books selected by id, in request order, along with the ids that were not found
+ *
+ * @author NIHARIKA GADDE
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookSelectionDTO {
+
+    @ApiModelProperty(notes = "The found books, in the order of the requested ids")
+    private List<BookDTO> books;
+
+    @ApiModelProperty(notes = "The requested ids that are not present in the system")
+    private List<Long> missingIds;
+
+}
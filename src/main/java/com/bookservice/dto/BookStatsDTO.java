@@ -0,0 +1,29 @@
+package com.bookservice.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Statistics of the catalogue grouped on an attribute of the books
+ *
+ * @author NIHARIKA GADDE
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookStatsDTO {
+
+    @ApiModelProperty(notes = "The grouped attribute")
+    private String groupBy;
+
+    @ApiModelProperty(notes = "The width of the price buckets of the histograms")
+    private Double bucketWidth;
+
+    @ApiModelProperty(notes = "The statistics of every group")
+    private List<BookGroupStatsDTO> groups;
+
+}
@@ -0,0 +1,67 @@
+package com.bookservice.dto;
+
+import com.bookservice.transfer.BookTransferFormat;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Status of a bulk import job
+ *
+ * @author NIHARIKA GADDE
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImportJobDTO {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    @ApiModelProperty(notes = "The ID of the job")
+    private String id;
+
+    @ApiModelProperty(notes = "The format of the uploaded file")
+    private BookTransferFormat format;
+
+    @ApiModelProperty(notes = "The status of the job, a FAILED job can be resumed")
+    private Status status;
+
+    @ApiModelProperty(notes = "The number of rows read from the uploaded file")
+    private long rowsRead;
+
+    @ApiModelProperty(notes = "The number of books added to the catalogue")
+    private long rowsImported;
+
+    @ApiModelProperty(notes = "The number of rows that could not be read, were invalid or failed")
+    private long rowsRejected;
+
+    @ApiModelProperty(notes = "The number of leading rows that are fully processed, a resumed job continues after them")
+    private long committedRows;
+
+    @ApiModelProperty(notes = "The number of times the job was started")
+    private int attempts;
+
+    @ApiModelProperty(notes = "The first rejected rows")
+    private List<ImportRowErrorDTO> errors;
+
+    @ApiModelProperty(notes = "The reason why the job failed")
+    private String message;
+
+    @ApiModelProperty(notes = "The time the file was uploaded")
+    private Instant createdAt;
+
+    @ApiModelProperty(notes = "The time the last attempt started")
+    private Instant startedAt;
+
+    @ApiModelProperty(notes = "The time the last attempt finished")
+    private Instant finishedAt;
+
+}
@@ -0,0 +1,26 @@
+package com.bookservice.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Row of an import that was not applied
+ *
+ * @author NIHARIKA GADDE
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImportRowErrorDTO {
+
+    @ApiModelProperty(notes = "The number of the row in the uploaded file, starting at 1 after the CSV header")
+    private long row;
+
+    @ApiModelProperty(notes = "The reason why the row was not applied")
+    private String message;
+
+}
@@ -0,0 +1,27 @@
+package com.bookservice.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bucket of a price histogram
+ *
+ * @author NIHARIKA GADDE
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceBucketDTO {
+
+    @ApiModelProperty(notes = "The lowest price of the bucket, inclusive")
+    private Double from;
+
+    @ApiModelProperty(notes = "The highest price of the bucket, exclusive")
+    private Double to;
+
+    @ApiModelProperty(notes = "The number of books in the bucket")
+    private Long count;
+
+}
@@ -0,0 +1,42 @@
+package com.bookservice.event;
+
+import com.bookservice.dto.BookDTO;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Event published by the services whenever a book is created, updated or
+ * deleted. Listeners keep derived state (caches, indexes, ...) in sync with
+ * the database
+ *
+ * @author NIHARIKA GADDE
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class BookChangedEvent {
+
+    public enum Type {
+        UPSERT, DELETE
+    }
+
+    private final Type type;
+
+    private final Long bookId;
+
+    private final BookDTO book;
+
+    public static BookChangedEvent upsert(BookDTO book) {
+        return new BookChangedEvent(Type.UPSERT, book.getId(), book);
+    }
+
+    public static BookChangedEvent delete(Long bookId) {
+        return new BookChangedEvent(Type.DELETE, bookId, null);
+    }
+
+    public boolean isDelete() {
+        return Type.DELETE == this.type;
+    }
+}
@@ -0,0 +1,24 @@
+package com.bookservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Event published when another node of the deployment reports a committed
+ * change of a book. It only carries the id and the new version, listeners drop
+ * or fence the state they derived from older versions
+ *
+ * @author NIHARIKA GADDE
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RemoteBookChangedEvent {
+
+    private final Long bookId;
+
+    private final Long version;
+
+    private final boolean deleted;
+}
@@ -1,17 +1,19 @@
 package com.bookservice.exception;
 
 /**
- * Exception thrown when the book of a particular id is not found in the system
+ * Exception thrown when the book of a particular id is not found in the system.
+ * A miss is an expected outcome, so the exception does not fill in its stack
+ * trace; the services report misses with an empty Optional instead of throwing it
  *
  * @author NIHARIKA GADDE
  */
 public class BookNotFoundException extends RuntimeException {
 
     public BookNotFoundException() {
-        super("Book Not Found...");
+        this("Book Not Found...");
     }
 
     public BookNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,16 @@
+package com.bookservice.exception;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Exception thrown when the adaptive limit of the requests in flight is reached.
+ * It is answered like a saturated request executor
+ *
+ * @author NIHARIKA GADDE
+ */
+public class ConcurrencyLimitExceededException extends RejectedExecutionException {
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package com.bookservice.exception;
+
+/**
+ * Exception thrown when the parameters of a request are out of the accepted
+ * range
+ *
+ * @author NIHARIKA GADDE
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -1,17 +1,19 @@
 package com.bookservice.exception;
 
 /**
- * Exception thrown when there are no books found in the system
+ * Exception thrown when there are no books found in the system. An empty result
+ * is an expected outcome, so the exception does not fill in its stack trace;
+ * the services report it with an empty list instead of throwing it
  *
  * @author NIHARIKA GADDE
  */
 public class NoBooksFoundException extends RuntimeException {
 
     public NoBooksFoundException() {
-        super("There are no books present in database...");
+        this("There are no books present in database...");
     }
 
     public NoBooksFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
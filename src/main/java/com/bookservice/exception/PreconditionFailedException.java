@@ -0,0 +1,18 @@
+package com.bookservice.exception;
+
+/**
+ * Exception thrown when a conditional update does not match the current
+ * version of the book
+ *
+ * @author NIHARIKA GADDE
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException() {
+        super("The book has been modified...");
+    }
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
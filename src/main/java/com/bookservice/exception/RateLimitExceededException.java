@@ -0,0 +1,20 @@
+package com.bookservice.exception;
+
+/**
+ * Exception thrown when a client has used up the rate limit of an endpoint
+ *
+ * @author NIHARIKA GADDE
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
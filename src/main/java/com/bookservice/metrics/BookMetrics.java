@@ -0,0 +1,74 @@
+package com.bookservice.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Class containing the application specific meters. Percentile histograms of
+ * every "books.*" meter are enabled through the management.metrics properties
+ *
+ * @author NIHARIKA GADDE
+ */
+@Component
+public class BookMetrics {
+
+    public static final String REPOSITORY_TIMER = "books.repository";
+    public static final String MAPPING_TIMER = "books.mapping";
+    public static final String SERIALIZATION_TIMER = "books.serialization";
+    public static final String RESULT_SIZE = "books.result.size";
+    public static final String ERRORS = "books.errors";
+    public static final String SERVICE_FAILURES = "books.service.failures";
+
+    private final MeterRegistry meterRegistry;
+    private final Timer mappingTimer;
+
+    public BookMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.mappingTimer = Timer.builder(MAPPING_TIMER)
+                .description("Time spent mapping between Book entities and DTOs")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Times an entity/DTO mapping
+     *
+     * @param mapping mapping to run
+     * @return result of the mapping
+     */
+    public <T> T timeMapping(Supplier<T> mapping) {
+        return this.mappingTimer.record(mapping);
+    }
+
+    /**
+     * Records the number of books returned by a list operation
+     *
+     * @param operation name of the operation
+     * @param size      number of books
+     */
+    public void recordResultSize(String operation, int size) {
+        this.meterRegistry.summary(RESULT_SIZE, "operation", operation).record(size);
+    }
+
+    /**
+     * Counts an exception answered by the exception handler
+     *
+     * @param ex handled exception
+     */
+    public void countError(Exception ex) {
+        this.meterRegistry.counter(ERRORS, "exception", ex.getClass().getSimpleName()).increment();
+    }
+
+    /**
+     * Counts an exception caught by a service operation
+     *
+     * @param operation name of the operation
+     * @param ex        caught exception
+     */
+    public void countFailure(String operation, Exception ex) {
+        this.meterRegistry.counter(SERVICE_FAILURES, "operation", operation,
+                "exception", ex.getClass().getSimpleName()).increment();
+    }
+}
@@ -0,0 +1,65 @@
+package com.bookservice.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the lookups of books that do not exist. Every miss is counted in the
+ * "books.misses" counter, tagged with the operation and with the source that
+ * answered it (the id filter or the database), but at most one log line per
+ * operation is written every books.misses.log-interval-millis, carrying the
+ * number of misses since the previous line. Probing traffic therefore costs a
+ * counter increment per miss instead of a log write
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+@Component
+public class MissRecorder {
+
+    public static final String MISSES = "books.misses";
+    public static final String SOURCE_FILTER = "filter";
+    public static final String SOURCE_DATABASE = "database";
+
+    private final MeterRegistry meterRegistry;
+    private final long logIntervalNanos;
+    private final ConcurrentMap<String, SampledLog> logs = new ConcurrentHashMap<>();
+
+    public MissRecorder(MeterRegistry meterRegistry,
+                        @Value("${books.misses.log-interval-millis:10000}") long logIntervalMillis) {
+        this.meterRegistry = meterRegistry;
+        this.logIntervalNanos = TimeUnit.MILLISECONDS.toNanos(logIntervalMillis);
+    }
+
+    /**
+     * Records a miss
+     *
+     * @param operation name of the operation
+     * @param source    {@link #SOURCE_FILTER} or {@link #SOURCE_DATABASE}
+     * @param key       looked up key, logged when the miss is sampled
+     */
+    public void recordMiss(String operation, String source, Object key) {
+        this.meterRegistry.counter(MISSES, "operation", operation, "source", source).increment();
+        SampledLog sampledLog = this.logs.computeIfAbsent(operation, name -> new SampledLog());
+        sampledLog.misses.increment();
+        long now = System.nanoTime();
+        long nextLog = sampledLog.nextLogNanos.get();
+        if (now - nextLog >= 0 && sampledLog.nextLogNanos.compareAndSet(nextLog, now + this.logIntervalNanos)) {
+            log.info("{} misses of {} since the last report, the last one for {}",
+                    sampledLog.misses.sumThenReset(), operation, key);
+        }
+    }
+
+    private static class SampledLog {
+        private final AtomicLong nextLogNanos = new AtomicLong(System.nanoTime());
+        private final LongAdder misses = new LongAdder();
+    }
+}
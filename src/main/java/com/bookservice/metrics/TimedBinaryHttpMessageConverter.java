@@ -0,0 +1,50 @@
+package com.bookservice.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message converter for a binary Jackson format (Smile, CBOR, ...), recording the
+ * time spent serializing the response bodies under the name of the format
+ *
+ * @author NIHARIKA GADDE
+ */
+public class TimedBinaryHttpMessageConverter extends AbstractJackson2HttpMessageConverter
+        implements TimedHttpMessageConverter {
+
+    private final Timer serializationTimer;
+
+    public TimedBinaryHttpMessageConverter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                           String format, MediaType mediaType) {
+        super(objectMapper, mediaType);
+        this.serializationTimer = Timer.builder(BookMetrics.SERIALIZATION_TIMER)
+                .description("Time spent serializing the response bodies")
+                .tag("format", format)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Timer getSerializationTimer() {
+        return this.serializationTimer;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            this.serializationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.bookservice.metrics;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Message converter recording the time spent serializing the response bodies
+ *
+ * @author NIHARIKA GADDE
+ */
+public interface TimedHttpMessageConverter {
+
+    /**
+     * @return Timer of the serialization in the format of the converter
+     */
+    Timer getSerializationTimer();
+}
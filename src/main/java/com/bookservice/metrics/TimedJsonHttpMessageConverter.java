@@ -0,0 +1,46 @@
+package com.bookservice.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON message converter recording the time spent serializing the response bodies
+ *
+ * @author NIHARIKA GADDE
+ */
+public class TimedJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter implements TimedHttpMessageConverter {
+
+    private final Timer serializationTimer;
+
+    public TimedJsonHttpMessageConverter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        super(objectMapper);
+        this.serializationTimer = Timer.builder(BookMetrics.SERIALIZATION_TIMER)
+                .description("Time spent serializing the response bodies")
+                .tag("format", "json")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Timer getSerializationTimer() {
+        return this.serializationTimer;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            this.serializationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -4,13 +4,23 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Version;
+import java.time.Instant;
 
 /**
- * Book Model
+ * Book Model, with ids allocated by the {@link com.bookservice.sharding.BookIdGenerator}
  *
  * @author NIHARIKA GADDE
  */
@@ -19,10 +29,20 @@ import javax.persistence.Id;
 @NoArgsConstructor
 @Builder
 @Entity
+@Cacheable
+@DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "book", indexes = {
+        @Index(name = "idx_book_author", columnList = "author, id"),
+        @Index(name = "idx_book_genre_price", columnList = "genre, price, id"),
+        @Index(name = "idx_book_price", columnList = "price, id"),
+        @Index(name = "idx_book_published_year", columnList = "published_year, id")
+})
 public class Book {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "book_id")
+    @GenericGenerator(name = "book_id", strategy = "com.bookservice.sharding.BookIdGenerator")
     private Long id;
 
     private String name;
@@ -35,6 +55,12 @@ public class Book {
 
     private Double price;
 
-    private String publishedYear;
+    private Integer publishedYear;
+
+    @Version
+    private Long version;
+
+    @UpdateTimestamp
+    private Instant lastModified;
 
 }
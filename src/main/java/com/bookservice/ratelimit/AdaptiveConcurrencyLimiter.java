@@ -0,0 +1,113 @@
+package com.bookservice.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adaptive limit of the requests in flight, following the gradient algorithm:
+ * the limit is scaled by the ratio between the long term average latency and
+ * the latency of the latest request, so it shrinks as soon as requests start
+ * queueing and grows back by roughly its square root while latency is stable.
+ * All the state is kept in atomics updated with compare-and-set
+ *
+ * @author NIHARIKA GADDE
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_RTT_WINDOW = 600;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${books.concurrency.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${books.concurrency.min-limit:4}")
+    private int minLimit;
+
+    @Value("${books.concurrency.max-limit:200}")
+    private int maxLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limit = new AtomicLong();
+    private final AtomicLong longRttNanos = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        this.limit.set(Double.doubleToLongBits(this.initialLimit));
+        this.meterRegistry.gauge("books.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit);
+        this.meterRegistry.gauge("books.concurrency.inflight", this.inFlight);
+    }
+
+    /**
+     * @return current limit of the requests in flight
+     */
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(this.limit.get());
+    }
+
+    /**
+     * Admits a request if the limit is not reached
+     *
+     * @return true if the request is admitted and must be released
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = this.inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases an admitted request and updates the limit from its latency
+     *
+     * @param rttNanos latency of the request
+     */
+    public void release(long rttNanos) {
+        int current = this.inFlight.getAndDecrement();
+        if (rttNanos <= 0) {
+            return;
+        }
+        double longRtt = updateLongRtt(rttNanos);
+        while (true) {
+            long bits = this.limit.get();
+            double currentLimit = Double.longBitsToDouble(bits);
+            if (current < currentLimit / 2) {
+                // the limit is not what holds the requests back, leave it
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRtt / rttNanos));
+            double newLimit = currentLimit * gradient + Math.sqrt(currentLimit);
+            newLimit = currentLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+            newLimit = Math.max(this.minLimit, Math.min(this.maxLimit, newLimit));
+            if (this.limit.compareAndSet(bits, Double.doubleToLongBits(newLimit))) {
+                return;
+            }
+        }
+    }
+
+    private double updateLongRtt(long rttNanos) {
+        while (true) {
+            long bits = this.longRttNanos.get();
+            double longRtt = Double.longBitsToDouble(bits);
+            double updated = 0 == bits ? rttNanos : longRtt + (rttNanos - longRtt) / LONG_RTT_WINDOW;
+            if (this.longRttNanos.compareAndSet(bits, Double.doubleToLongBits(updated))) {
+                return updated;
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.bookservice.ratelimit;
+
+import com.bookservice.constants.StringConstants;
+import com.bookservice.exception.ConcurrencyLimitExceededException;
+import com.bookservice.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Interceptor protecting the book endpoints. Every request first takes the cost
+ * of its endpoint from the token bucket of its client and endpoint, and is then
+ * admitted by the adaptive
+ * concurrency limiter. The admission is released when the request completes,
+ * including the asynchronous ones, and its latency feeds the limiter. The client
+ * is the X-API-Key header when it is one of books.ratelimit.api-keys, and the
+ * remote address otherwise, so unknown keys do not get buckets of their own
+ *
+ * @author NIHARIKA GADDE
+ */
+@Component
+public class RateLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = RateLimitInterceptor.class.getName() + ".permit";
+
+    @Autowired
+    private TokenBucketRateLimiter rateLimiter;
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${books.ratelimit.enabled:true}")
+    private boolean rateLimitEnabled;
+
+    @Value("${books.concurrency.enabled:true}")
+    private boolean concurrencyLimitEnabled;
+
+    @Value("${books.ratelimit.api-keys:}")
+    private String[] apiKeys;
+
+    private final Map<Method, Integer> costs = new ConcurrentHashMap<>();
+
+    private Set<String> knownApiKeys = Collections.emptySet();
+
+    @PostConstruct
+    void init() {
+        Set<String> keys = new HashSet<>();
+        Arrays.stream(this.apiKeys).filter(StringUtils::isNotBlank).map(String::trim).forEach(keys::add);
+        this.knownApiKeys = Collections.unmodifiableSet(keys);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (DispatcherType.REQUEST != request.getDispatcherType() || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        Method method = ((HandlerMethod) handler).getMethod();
+        String endpoint = method.getName();
+        if (this.rateLimitEnabled) {
+            long waitNanos = this.rateLimiter.tryAcquire(clientId(request) + ":" + endpoint, costOf(method));
+            if (waitNanos > 0) {
+                this.meterRegistry.counter("books.ratelimit.rejected", "endpoint", endpoint).increment();
+                throw new RateLimitExceededException("Rate limit exceeded for " + endpoint,
+                        Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+            }
+        }
+        RequestCost requestCost = method.getAnnotation(RequestCost.class);
+        if (this.concurrencyLimitEnabled && (null == requestCost || requestCost.concurrencyLimited())) {
+            if (!this.concurrencyLimiter.tryAcquire()) {
+                this.meterRegistry.counter("books.concurrency.rejected", "endpoint", endpoint).increment();
+                throw new ConcurrencyLimitExceededException("Concurrency limit of "
+                        + this.concurrencyLimiter.getLimit() + " requests reached");
+            }
+            request.setAttribute(PERMIT_ATTRIBUTE, new Permit());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit instanceof Permit && request.isAsyncStarted()) {
+            request.getAsyncContext().addListener((Permit) permit);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit instanceof Permit) {
+            ((Permit) permit).release();
+        }
+    }
+
+    private int costOf(Method method) {
+        return this.costs.computeIfAbsent(method, m -> {
+            RequestCost requestCost = m.getAnnotation(RequestCost.class);
+            return this.environment.getProperty("books.ratelimit.cost." + m.getName(), Integer.class,
+                    null == requestCost ? 1 : requestCost.value());
+        });
+    }
+
+    private String clientId(HttpServletRequest request) {
+        String apiKey = request.getHeader(StringConstants.API_KEY_HEADER);
+        return null != apiKey && this.knownApiKeys.contains(apiKey) ? "key:" + apiKey : "addr:" + request.getRemoteAddr();
+    }
+
+    /**
+     * Admission of a request, released once whichever of the completion
+     * callbacks comes first
+     */
+    private class Permit implements AsyncListener {
+
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (this.released.compareAndSet(false, true)) {
+                concurrencyLimiter.release(System.nanoTime() - this.start);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.bookservice.ratelimit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Number of rate limit tokens taken by a call to the annotated endpoint. The
+ * value can be overridden with the books.ratelimit.cost.&lt;method name&gt; property,
+ * endpoints that are not annotated cost one token. Long-lived endpoints (streams,
+ * long polls) are left out of the adaptive concurrency limit, as their duration
+ * says nothing about the load of the service
+ *
+ * @author NIHARIKA GADDE
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequestCost {
+
+    int value();
+
+    boolean concurrencyLimited() default true;
+}
@@ -0,0 +1,76 @@
+package com.bookservice.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket rate limiter implemented with the generic cell rate algorithm
+ * (GCRA). The state of a bucket is a single theoretical arrival time updated
+ * with compare-and-set, so no lock is taken on the request path. The buckets
+ * are held in a Caffeine cache and dropped once idle
+ *
+ * @author NIHARIKA GADDE
+ */
+@Component
+public class TokenBucketRateLimiter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${books.ratelimit.tokens-per-second:100}")
+    private double tokensPerSecond;
+
+    @Value("${books.ratelimit.burst:200}")
+    private int burst;
+
+    @Value("${books.ratelimit.max-clients:100000}")
+    private long maxClients;
+
+    private long emissionIntervalNanos;
+    private long burstToleranceNanos;
+    private Cache<String, AtomicLong> buckets;
+
+    @PostConstruct
+    void init() {
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / this.tokensPerSecond);
+        this.burstToleranceNanos = this.emissionIntervalNanos * this.burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(this.maxClients)
+                .expireAfterAccess(Math.max(1, this.burstToleranceNanos), TimeUnit.NANOSECONDS)
+                .build();
+        this.meterRegistry.gauge("books.ratelimit.buckets", this.buckets, Cache::estimatedSize);
+    }
+
+    /**
+     * Takes tokens from the bucket of the given key
+     *
+     * @param key  key of the bucket, e.g. client and endpoint
+     * @param cost number of tokens to take
+     * @return 0 if the tokens were taken, otherwise the nanoseconds to wait
+     * before they are available
+     */
+    public long tryAcquire(String key, int cost) {
+        AtomicLong theoreticalArrival = this.buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long increment = this.emissionIntervalNanos * Math.min(Math.max(cost, 1), this.burst);
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long next = (current == Long.MIN_VALUE ? now : Math.max(current, now)) + increment;
+            long allowedAt = next - this.burstToleranceNanos;
+            if (allowedAt > now) {
+                return allowedAt - now;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.bookservice.repository;
+
+/**
+ * Columns the book statistics can be grouped on
+ *
+ * @author NIHARIKA GADDE
+ */
+public enum BookGroupField {
+
+    GENRE("genre"),
+    AUTHOR("author"),
+    PUBLISHED_YEAR("publishedYear");
+
+    private final String attribute;
+
+    BookGroupField(String attribute) {
+        this.attribute = attribute;
+    }
+
+    /**
+     * @return name of the grouped attribute of {@link com.bookservice.model.Book}
+     */
+    public String getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * Finds the group field from its attribute name
+     *
+     * @param attribute name of the attribute, e.g. publishedYear
+     * @return {@link BookGroupField}
+     * @throws IllegalArgumentException if the attribute cannot be grouped on
+     */
+    public static BookGroupField fromAttribute(String attribute) {
+        for (BookGroupField groupField : values()) {
+            if (groupField.attribute.equalsIgnoreCase(attribute)) {
+                return groupField;
+            }
+        }
+        throw new IllegalArgumentException("Books cannot be grouped on: " + attribute);
+    }
+}
@@ -0,0 +1,63 @@
+package com.bookservice.repository;
+
+import com.bookservice.dto.BookDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of a book in a sorted list, used to continue the list right after it.
+ * When sorting on the id the cursor is the plain id, otherwise it is an opaque
+ * token carrying both the sorted value and the id
+ *
+ * @author NIHARIKA GADDE
+ */
+@Getter
+@AllArgsConstructor
+public class BookKeyset {
+
+    private static final String SEPARATOR = ":";
+
+    private final Comparable<?> value;
+
+    private final Long id;
+
+    /**
+     * Builds the cursor continuing a list after the given book
+     *
+     * @param sortField sort of the list
+     * @param book      last book of the page {@link BookDTO}
+     * @return cursor to send back as the after parameter
+     */
+    public static String encode(BookSortField sortField, BookDTO book) {
+        if (BookSortField.ID == sortField) {
+            return String.valueOf(book.getId());
+        }
+        String position = book.getId() + SEPARATOR + sortField.valueIn(book);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a cursor built by {@link #encode(BookSortField, BookDTO)}
+     *
+     * @param sortField sort of the list
+     * @param cursor    cursor received as the after parameter
+     * @return {@link BookKeyset}
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static BookKeyset decode(BookSortField sortField, String cursor) {
+        if (BookSortField.ID == sortField) {
+            Long id = Long.valueOf(cursor);
+            return new BookKeyset(id, id);
+        }
+        String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = position.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor);
+        }
+        return new BookKeyset(sortField.parse(position.substring(separator + 1)),
+                Long.valueOf(position.substring(0, separator)));
+    }
+}
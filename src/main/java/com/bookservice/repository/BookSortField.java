@@ -0,0 +1,76 @@
+package com.bookservice.repository;
+
+import com.bookservice.dto.BookDTO;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * Columns the book list can be sorted on. Every sort is completed with the id,
+ * so that the order is total and a page can be continued from its last book
+ *
+ * @author NIHARIKA GADDE
+ */
+public enum BookSortField {
+
+    ID("id", BookDTO::getId, Long::valueOf),
+    NAME("name", BookDTO::getName, Function.identity()),
+    PRICE("price", BookDTO::getPrice, Double::valueOf),
+    PUBLISHED_YEAR("publishedYear", BookDTO::getPublishedYear, Integer::valueOf);
+
+    private final String attribute;
+    private final Function<BookDTO, Object> getter;
+    private final Function<String, Comparable<?>> parser;
+
+    BookSortField(String attribute, Function<BookDTO, Object> getter, Function<String, Comparable<?>> parser) {
+        this.attribute = attribute;
+        this.getter = getter;
+        this.parser = parser;
+    }
+
+    /**
+     * @return name of the sorted attribute of {@link com.bookservice.model.Book}
+     */
+    public String getAttribute() {
+        return attribute;
+    }
+
+    Object valueIn(BookDTO book) {
+        return getter.apply(book);
+    }
+
+    Comparable<?> parse(String value) {
+        return parser.apply(value);
+    }
+
+    /**
+     * Order of the books sorted on this field, completed with the id. Missing
+     * values come first in ascending order, as they do in the database
+     *
+     * @param descending true for the descending order
+     * @return comparator of the books
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Comparator<BookDTO> comparator(boolean descending) {
+        Comparator<BookDTO> ascending = Comparator.comparing(book -> (Comparable) valueIn(book),
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+        ascending = ascending.thenComparing(BookDTO::getId);
+        return descending ? ascending.reversed() : ascending;
+    }
+
+    /**
+     * Finds the sort field from its attribute name
+     *
+     * @param attribute name of the attribute, e.g. publishedYear
+     * @return {@link BookSortField}
+     * @throws IllegalArgumentException if the attribute cannot be sorted on
+     */
+    public static BookSortField fromAttribute(String attribute) {
+        for (BookSortField sortField : values()) {
+            if (sortField.attribute.equalsIgnoreCase(attribute)) {
+                return sortField;
+            }
+        }
+        throw new IllegalArgumentException("Books cannot be sorted on: " + attribute);
+    }
+}
@@ -0,0 +1,50 @@
+package com.bookservice.repository;
+
+import com.bookservice.dto.BookFilterDTO;
+import com.bookservice.model.Book;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Specifications of the book filters. Each one is an equality or a range on an
+ * indexed column, a filter that is not set contributes no predicate
+ *
+ * @author NIHARIKA GADDE
+ */
+public final class BookSpecifications {
+
+    private BookSpecifications() {
+        throw new IllegalStateException("Class containing Book Specifications");
+    }
+
+    /**
+     * @param filter filters to combine {@link BookFilterDTO}
+     * @return Specification matching every filter that is set
+     */
+    public static Specification<Book> matching(BookFilterDTO filter) {
+        return Specification.where(hasAuthor(filter.getAuthor()))
+                .and(hasGenre(filter.getGenre()))
+                .and(priceAtLeast(filter.getMinPrice()))
+                .and(priceAtMost(filter.getMaxPrice()))
+                .and(publishedIn(filter.getYear()));
+    }
+
+    public static Specification<Book> hasAuthor(String author) {
+        return null == author ? null : (book, query, cb) -> cb.equal(book.get("author"), author);
+    }
+
+    public static Specification<Book> hasGenre(String genre) {
+        return null == genre ? null : (book, query, cb) -> cb.equal(book.get("genre"), genre);
+    }
+
+    public static Specification<Book> priceAtLeast(Double minPrice) {
+        return null == minPrice ? null : (book, query, cb) -> cb.greaterThanOrEqualTo(book.get("price"), minPrice);
+    }
+
+    public static Specification<Book> priceAtMost(Double maxPrice) {
+        return null == maxPrice ? null : (book, query, cb) -> cb.lessThanOrEqualTo(book.get("price"), maxPrice);
+    }
+
+    public static Specification<Book> publishedIn(Integer year) {
+        return null == year ? null : (book, query, cb) -> cb.equal(book.get("publishedYear"), year);
+    }
+}
@@ -1,17 +1,89 @@
 package com.bookservice.repository;
 
+import com.bookservice.dto.BookDTO;
 import com.bookservice.model.Book;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 /**
- * Class containing Data Access Logic for Book Entity
+ * Class containing Data Access Logic for Book Entity. The read queries project
+ * straight into {@link BookDTO} through a constructor expression, so that no
+ * managed entity (and no dirty checking snapshot) is created for them. They
+ * run in read-only transactions, which may be routed to a replica unless they
+ * join a read-write transaction of the caller
  *
  * @author NIHARIKA GADDE
  */
-public interface BooksRepository extends JpaRepository<Book, Long> {
+public interface BooksRepository extends JpaRepository<Book, Long>, BooksRepositoryCustom {
+
+    String SELECT_BOOK_DTO = "select new com.bookservice.dto.BookDTO(b.id, b.name, b.author, b.genre, "
+            + "b.description, b.price, b.publishedYear, b.version, b.lastModified) from Book b ";
 
+    @Transactional(readOnly = true)
     List<Book> findByIdIn(List<Long> ids);
 
+    @Transactional(readOnly = true)
+    @Query(SELECT_BOOK_DTO + "where b.id = :id")
+    Optional<BookDTO> findBookDTOById(@Param("id") Long id);
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_BOOK_DTO + "where b.id in :ids")
+    List<BookDTO> findBookDTOsByIdIn(@Param("ids") List<Long> ids);
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_BOOK_DTO + "order by b.id")
+    List<BookDTO> findAllBookDTOs();
+
+    /**
+     * Keyset page of books ordered by id, starting right after the given id
+     *
+     * @param id       id of the last book of the previous page
+     * @param pageable page size, the page number is always expected to be 0
+     * @return List of Books {@link BookDTO}
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_BOOK_DTO + "where b.id > :id order by b.id")
+    List<BookDTO> findPageAfter(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Deletes a book with one statement, without loading it first
+     *
+     * @param id id of the book
+     * @return number of deleted books, 0 if there is no book with this id
+     */
+    @Modifying
+    @Query("delete from Book b where b.id = :id")
+    int deleteBookById(@Param("id") Long id);
+
+    /**
+     * @return Latest modification time of the books, null if there are none
+     */
+    @Transactional(readOnly = true)
+    @Query("select max(b.lastModified) from Book b")
+    Instant findLastModified();
+
+    /**
+     * Streams all the books ordered by id. Must be consumed inside a transaction
+     * and closed by the caller
+     *
+     * @return Stream of Books {@link BookDTO}
+     */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_BOOK_DTO + "order by b.id")
+    Stream<BookDTO> streamAll();
+
 }
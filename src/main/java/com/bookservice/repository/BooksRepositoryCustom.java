@@ -0,0 +1,48 @@
+package com.bookservice.repository;
+
+import com.bookservice.dto.BookDTO;
+import com.bookservice.dto.BookGroupStatsDTO;
+import com.bookservice.model.Book;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Queries of {@link BooksRepository} that are built with the Criteria API
+ *
+ * @author NIHARIKA GADDE
+ */
+public interface BooksRepositoryCustom {
+
+    /**
+     * Keyset page of the books matching a specification, projected into DTOs
+     *
+     * @param specification filters of the books, may be null
+     * @param sortField     sorted column, completed with the id
+     * @param descending    true to sort in descending order
+     * @param after         position of the last book of the previous page, may be null
+     * @param limit         maximum number of books
+     * @return List of Books {@link BookDTO}
+     */
+    List<BookDTO> findFiltered(Specification<Book> specification, BookSortField sortField,
+                               boolean descending, BookKeyset after, int limit);
+
+    /**
+     * Count and price statistics of the books grouped on the given attribute,
+     * computed by the database
+     *
+     * @param groupField grouped attribute
+     * @return List of statistics {@link BookGroupStatsDTO} ordered by group, without histograms
+     */
+    List<BookGroupStatsDTO> findGroupStats(BookGroupField groupField);
+
+    /**
+     * Price histograms of the books grouped on the given attribute, computed by
+     * the database
+     *
+     * @param groupField  grouped attribute
+     * @param bucketWidth width of the price buckets
+     * @return Rows of (group, bucket index, count)
+     */
+    List<Object[]> findPriceHistograms(BookGroupField groupField, double bucketWidth);
+}
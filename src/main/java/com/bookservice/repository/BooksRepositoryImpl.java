@@ -0,0 +1,103 @@
+package com.bookservice.repository;
+
+import com.bookservice.dto.BookDTO;
+import com.bookservice.dto.BookGroupStatsDTO;
+import com.bookservice.model.Book;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of {@link BooksRepositoryCustom}. The position of the previous
+ * page is turned into a "(value, id) after (v, i)" predicate rather than an
+ * offset, so that every page is a range scan of the index on the sorted column.
+ * The grouped attributes come from {@link BookGroupField}, never from the request.
+ * All the queries are read-only
+ *
+ * @author NIHARIKA GADDE
+ */
+@Transactional(readOnly = true)
+public class BooksRepositoryImpl implements BooksRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookDTO> findFiltered(Specification<Book> specification, BookSortField sortField,
+                                      boolean descending, BookKeyset after, int limit) {
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookDTO> query = cb.createQuery(BookDTO.class);
+        Root<Book> book = query.from(Book.class);
+        query.select(cb.construct(BookDTO.class, book.get("id"), book.get("name"), book.get("author"),
+                book.get("genre"), book.get("description"), book.get("price"), book.get("publishedYear"),
+                book.get("version"), book.get("lastModified")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (null != specification) {
+            Predicate filter = specification.toPredicate(book, query, cb);
+            if (null != filter) {
+                predicates.add(filter);
+            }
+        }
+        Path<Long> id = book.get("id");
+        Path<Object> sorted = book.get(sortField.getAttribute());
+        if (null != after) {
+            Predicate afterId = after(cb, id, after.getId(), descending);
+            if (BookSortField.ID == sortField) {
+                predicates.add(afterId);
+            } else {
+                predicates.add(cb.or(after(cb, sorted, after.getValue(), descending),
+                        cb.and(cb.equal(sorted, after.getValue()), afterId)));
+            }
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+
+        List<Order> orders = new ArrayList<>(2);
+        if (BookSortField.ID != sortField) {
+            orders.add(descending ? cb.desc(sorted) : cb.asc(sorted));
+        }
+        orders.add(descending ? cb.desc(id) : cb.asc(id));
+        query.orderBy(orders);
+
+        return this.entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<BookGroupStatsDTO> findGroupStats(BookGroupField groupField) {
+        String group = "b." + groupField.getAttribute();
+        return this.entityManager.createQuery("select new com.bookservice.dto.BookGroupStatsDTO(" + group
+                + ", count(b), min(b.price), max(b.price), avg(b.price)) from Book b group by " + group
+                + " order by " + group, BookGroupStatsDTO.class)
+                .getResultList();
+    }
+
+    @Override
+    public List<Object[]> findPriceHistograms(BookGroupField groupField, double bucketWidth) {
+        // the width is inlined, a bind parameter would make the select and group by expressions differ
+        String group = "b." + groupField.getAttribute();
+        String bucket = "floor(b.price / " + BigDecimal.valueOf(bucketWidth).toPlainString() + ")";
+        return this.entityManager.createQuery("select " + group + ", " + bucket + ", count(b) from Book b "
+                + "where b.price is not null group by " + group + ", " + bucket
+                + " order by " + group + ", " + bucket, Object[].class)
+                .getResultList();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate after(CriteriaBuilder cb, Expression path, Comparable value, boolean descending) {
+        return descending ? cb.lessThan(path, value) : cb.greaterThan(path, value);
+    }
+}
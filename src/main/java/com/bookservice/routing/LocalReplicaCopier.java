@@ -0,0 +1,118 @@
+package com.bookservice.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for the replication of a real database, for running the replicas
+ * on local in-memory databases. Each replica is migrated at startup, without a
+ * heartbeat until its first copy, and then gets a full copy of the replicated
+ * tables of the primary every interval of its own, so it lags by up to that
+ * interval: a replica copied less often than
+ * books.replicas.max-lag-millis is regularly skipped by the
+ * {@link ReplicaLagMonitor}. It does nothing without intervals
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+public class LocalReplicaCopier implements InitializingBean, DisposableBean {
+
+    private static final List<String> TABLES = Collections.unmodifiableList(
+            Arrays.asList("book", "book_change", "replica_heartbeat"));
+
+    private final JdbcTemplate primary;
+    private final List<HikariDataSource> replicas;
+    private final long[] intervalsMillis;
+    private final String[] flywayLocations;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "books-replica-copier");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param primary         pool of the primary
+     * @param replicas        writable pools of the replicas
+     * @param intervalsMillis copy interval of every replica, the last one applies to the further replicas
+     * @param flywayLocations migrations of the replicas
+     */
+    public LocalReplicaCopier(DataSource primary, List<HikariDataSource> replicas, long[] intervalsMillis,
+                              String[] flywayLocations) {
+        this.primary = new JdbcTemplate(primary);
+        this.replicas = replicas;
+        this.intervalsMillis = intervalsMillis;
+        this.flywayLocations = flywayLocations;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (0 == this.intervalsMillis.length) {
+            return;
+        }
+        for (int i = 0; i < this.replicas.size(); i++) {
+            DataSource replica = this.replicas.get(i);
+            Flyway.configure().dataSource(replica).locations(this.flywayLocations).load().migrate();
+            new JdbcTemplate(replica).update("delete from replica_heartbeat");
+            long intervalMillis = this.intervalsMillis[Math.min(i, this.intervalsMillis.length - 1)];
+            this.scheduler.scheduleWithFixedDelay(() -> copy(replica), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        this.scheduler.shutdownNow();
+        this.replicas.forEach(HikariDataSource::close);
+    }
+
+    void copy(DataSource replica) {
+        JdbcTemplate target = new JdbcTemplate(replica);
+        try {
+            new TransactionTemplate(new DataSourceTransactionManager(replica)).execute(status -> {
+                for (String table : TABLES) {
+                    copyTable(table, target);
+                }
+                return null;
+            });
+        } catch (Exception ex) {
+            log.error(ex.getLocalizedMessage());
+        }
+    }
+
+    private void copyTable(String table, JdbcTemplate target) {
+        List<String> columns = new ArrayList<>();
+        List<Object[]> rows = this.primary.query("select * from " + table, (rs, rowNum) -> {
+            ResultSetMetaData metaData = rs.getMetaData();
+            if (columns.isEmpty()) {
+                for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                    columns.add(metaData.getColumnName(column));
+                }
+            }
+            Object[] row = new Object[metaData.getColumnCount()];
+            for (int column = 0; column < row.length; column++) {
+                row[column] = rs.getObject(column + 1);
+            }
+            return row;
+        });
+        target.update("delete from " + table);
+        if (!rows.isEmpty()) {
+            target.batchUpdate("insert into " + table + " (" + String.join(", ", columns) + ") values ("
+                    + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")", rows);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.bookservice.routing;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an endpoint mapped to POST, PUT, PATCH or DELETE that does not change
+ * any book, e.g. a query sent in the body. Calls to it do not pin the client
+ * to the primary
+ *
+ * @author NIHARIKA GADDE
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadOnlyRequest {
+}
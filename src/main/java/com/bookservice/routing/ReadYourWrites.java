@@ -0,0 +1,53 @@
+package com.bookservice.routing;
+
+/**
+ * Holder of the read-your-writes flag of the current thread. A pinned thread
+ * reads from the primary even inside read-only transactions, so that a client
+ * sees its own changes before the replicas catch up. The flag is carried over
+ * to the executors through {@link #propagate(Runnable)}
+ *
+ * @author NIHARIKA GADDE
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @return true if the current thread must read from the primary
+     */
+    public static boolean isPinned() {
+        return Boolean.TRUE.equals(PINNED.get());
+    }
+
+    static void pin(boolean pinned) {
+        if (pinned) {
+            PINNED.set(Boolean.TRUE);
+        } else {
+            PINNED.remove();
+        }
+    }
+
+    /**
+     * Wraps a task so that it runs with the flag of the submitting thread, for
+     * use as a task decorator
+     *
+     * @param task task submitted to an executor
+     * @return task restoring the flag of the worker thread once done
+     */
+    public static Runnable propagate(Runnable task) {
+        boolean pinned = isPinned();
+        return () -> {
+            boolean previous = isPinned();
+            pin(pinned);
+            try {
+                task.run();
+            } finally {
+                pin(previous);
+            }
+        };
+    }
+}
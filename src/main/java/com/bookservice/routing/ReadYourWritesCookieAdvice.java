@@ -0,0 +1,60 @@
+package com.bookservice.routing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sets the cookie keeping the reads of a client on the primary for
+ * books.replicas.sticky-seconds on the successful (2xx) responses of the
+ * requests that change the books, as marked by {@link ReadYourWritesInterceptor}.
+ * It runs right before the body is written, while the headers can still be set,
+ * including for the asynchronous requests
+ *
+ * @author NIHARIKA GADDE
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "books.replicas.enabled", havingValue = "true")
+public class ReadYourWritesCookieAdvice implements ResponseBodyAdvice<Object> {
+
+    @Value("${books.replicas.sticky-seconds:5}")
+    private int stickySeconds;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest) || !(response instanceof ServletServerHttpResponse)
+                || null == ((ServletServerHttpRequest) request).getServletRequest()
+                .getAttribute(ReadYourWritesInterceptor.CHANGE_ATTRIBUTE)) {
+            return body;
+        }
+        HttpServletResponse servletResponse = ((ServletServerHttpResponse) response).getServletResponse();
+        if (2 == servletResponse.getStatus() / 100) {
+            long primaryUntil = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(this.stickySeconds);
+            Cookie cookie = new Cookie(ReadYourWritesInterceptor.COOKIE_NAME, Long.toString(primaryUntil));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge(this.stickySeconds);
+            servletResponse.addCookie(cookie);
+        }
+        return body;
+    }
+}
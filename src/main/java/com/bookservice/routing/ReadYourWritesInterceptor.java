@@ -0,0 +1,73 @@
+package com.bookservice.routing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Interceptor pinning the reads of a request to the primary when the request
+ * changes the books, i.e. its endpoint is mapped to POST, PUT, PATCH or DELETE
+ * and not marked with {@link ReadOnlyRequest}, or when its client changed the
+ * books within books.replicas.sticky-seconds according to the cookie set by
+ * {@link ReadYourWritesCookieAdvice}
+ *
+ * @author NIHARIKA GADDE
+ */
+@Component
+@ConditionalOnProperty(name = "books.replicas.enabled", havingValue = "true")
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    static final String COOKIE_NAME = "books-primary-until";
+
+    static final String CHANGE_ATTRIBUTE = ReadYourWritesInterceptor.class.getName() + ".change";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        boolean change = isChange(request, handler);
+        if (change) {
+            request.setAttribute(CHANGE_ATTRIBUTE, Boolean.TRUE);
+        }
+        ReadYourWrites.pin(change || System.currentTimeMillis() < primaryUntil(request));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReadYourWrites.pin(false);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReadYourWrites.pin(false);
+    }
+
+    private static boolean isChange(HttpServletRequest request, Object handler) {
+        HttpMethod method = HttpMethod.resolve(request.getMethod());
+        boolean changingMethod = HttpMethod.POST == method || HttpMethod.PUT == method
+                || HttpMethod.PATCH == method || HttpMethod.DELETE == method;
+        return changingMethod && !(handler instanceof HandlerMethod
+                && ((HandlerMethod) handler).hasMethodAnnotation(ReadOnlyRequest.class));
+    }
+
+    private static long primaryUntil(HttpServletRequest request) {
+        if (null == request.getCookies()) {
+            return 0L;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException ex) {
+                    return 0L;
+                }
+            }
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,91 @@
+package com.bookservice.routing;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heartbeat measuring the lag of the replicas. Every interval the primary
+ * writes the current time into replica_heartbeat, then each replica is asked
+ * for the time it sees there. A replica is used for reads while its lag stays
+ * within books.replicas.max-lag-millis and it answers at all, the lag is
+ * published as books.replicas.lag
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+public class ReplicaLagMonitor implements InitializingBean, DisposableBean {
+
+    private static final String UPDATE_HEARTBEAT = "update replica_heartbeat set beat_at = ? where id = 1";
+    private static final String SELECT_HEARTBEAT = "select beat_at from replica_heartbeat where id = 1";
+
+    private final JdbcTemplate primary;
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final long maxLagMillis;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "books-replica-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaLagMonitor(DataSource primary, ReplicaRoutingDataSource routingDataSource,
+                             long maxLagMillis, long intervalMillis, MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.routingDataSource = routingDataSource;
+        this.maxLagMillis = maxLagMillis;
+        this.intervalMillis = intervalMillis;
+        this.routingDataSource.getReplicas().forEach(replica ->
+                Gauge.builder("books.replicas.lag", replica, ReplicaRoutingDataSource.Replica::getLagMillis)
+                        .tag("replica", replica.getName())
+                        .baseUnit("milliseconds")
+                        .register(meterRegistry));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (this.routingDataSource.getReplicas().isEmpty()) {
+            return;
+        }
+        this.scheduler.scheduleWithFixedDelay(this::beat, this.intervalMillis, this.intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        this.scheduler.shutdownNow();
+    }
+
+    void beat() {
+        Timestamp beatAt = new Timestamp(System.currentTimeMillis());
+        try {
+            this.primary.update(UPDATE_HEARTBEAT, beatAt);
+        } catch (Exception ex) {
+            log.error(ex.getLocalizedMessage());
+            return;
+        }
+        for (ReplicaRoutingDataSource.Replica replica : this.routingDataSource.getReplicas()) {
+            try {
+                Timestamp seen = new JdbcTemplate(replica.getDataSource()).queryForObject(SELECT_HEARTBEAT, Timestamp.class);
+                long lagMillis = null == seen ? Long.MAX_VALUE : Math.max(0L, beatAt.getTime() - seen.getTime());
+                if (replica.isHealthy() && lagMillis > this.maxLagMillis) {
+                    log.warn("Replica {} lags by {} ms, reading from the primary", replica.getName(), lagMillis);
+                }
+                replica.update(lagMillis <= this.maxLagMillis, lagMillis);
+            } catch (Exception ex) {
+                if (replica.isHealthy()) {
+                    log.error(ex.getLocalizedMessage());
+                }
+                replica.update(false, -1L);
+            }
+        }
+    }
+}
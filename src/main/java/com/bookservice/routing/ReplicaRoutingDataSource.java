@@ -0,0 +1,136 @@
+package com.bookservice.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Data source sending the read-only transactions to the replicas and
+ * everything else to the primary. Only the replicas marked healthy by the
+ * {@link ReplicaLagMonitor} are used, picked round-robin or by the fewest
+ * active connections; without any, and for threads pinned by
+ * {@link ReadYourWrites}, reads go to the primary. Must be wrapped in a
+ * LazyConnectionDataSourceProxy, so that the connection is taken once the
+ * read-only flag of the transaction is known. Routed connections are counted
+ * in books.datasource.routes
+ *
+ * @author NIHARIKA GADDE
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public enum Balancing {
+        ROUND_ROBIN, LEAST_LOADED
+    }
+
+    static final String PRIMARY = "primary";
+
+    private static final String ROUTES_METRIC = "books.datasource.routes";
+
+    @Getter
+    private final List<Replica> replicas;
+    private final Balancing balancing;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryRoutes;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+                                    Balancing balancing, MeterRegistry meterRegistry) {
+        this.balancing = balancing;
+        this.replicas = replicas.stream()
+                .map(dataSource -> new Replica(dataSource, meterRegistry.counter(ROUTES_METRIC, "target", dataSource.getPoolName())))
+                .collect(toList());
+        this.primaryRoutes = meterRegistry.counter(ROUTES_METRIC, "target", PRIMARY);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        this.replicas.forEach(replica -> targets.put(replica.getName(), replica.getDataSource()));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !ReadYourWrites.isPinned()) {
+            Replica replica = select();
+            if (null != replica) {
+                replica.routes.increment();
+                return replica.getName();
+            }
+        }
+        this.primaryRoutes.increment();
+        return PRIMARY;
+    }
+
+    @Override
+    public void destroy() {
+        this.replicas.forEach(replica -> replica.getDataSource().close());
+    }
+
+    private Replica select() {
+        List<Replica> healthy = new ArrayList<>(this.replicas.size());
+        for (Replica replica : this.replicas) {
+            if (replica.isHealthy()) {
+                healthy.add(replica);
+            }
+        }
+        if (healthy.isEmpty()) {
+            return null;
+        }
+        if (Balancing.LEAST_LOADED == this.balancing) {
+            Replica leastLoaded = null;
+            int fewest = Integer.MAX_VALUE;
+            for (Replica replica : healthy) {
+                int active = replica.activeConnections();
+                if (active < fewest) {
+                    fewest = active;
+                    leastLoaded = replica;
+                }
+            }
+            return leastLoaded;
+        }
+        return healthy.get(Math.floorMod(this.next.getAndIncrement(), healthy.size()));
+    }
+
+    /**
+     * Replica pool with the state reported by the {@link ReplicaLagMonitor}
+     */
+    @Getter
+    public static class Replica {
+
+        private final HikariDataSource dataSource;
+        private final Counter routes;
+        private volatile boolean healthy;
+        private volatile long lagMillis = -1L;
+
+        Replica(HikariDataSource dataSource, Counter routes) {
+            this.dataSource = dataSource;
+            this.routes = routes;
+        }
+
+        public String getName() {
+            return this.dataSource.getPoolName();
+        }
+
+        void update(boolean healthy, long lagMillis) {
+            this.healthy = healthy;
+            this.lagMillis = lagMillis;
+        }
+
+        private int activeConnections() {
+            HikariPoolMXBean pool = this.dataSource.getHikariPoolMXBean();
+            return null == pool ? 0 : pool.getActiveConnections();
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.bookservice.search;
+
+import com.bookservice.dto.BookDTO;
+import com.bookservice.dto.BookSearchResultDTO;
+import com.bookservice.event.BookChangedEvent;
+import com.bookservice.event.RemoteBookChangedEvent;
+import com.bookservice.repository.BooksRepository;
+import com.bookservice.service.BooksService;
+import com.bookservice.sharding.BookShards;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Embedded Lucene index over the text fields of the books. The index is built
+ * from the database once the application is ready and then kept in sync with
+ * every committed {@link BookChangedEvent}, a change that fails to be indexed
+ * is logged and only searched again after the next rebuild. The index is local
+ * to the node, the books changed by the other nodes are read again from the
+ * database on their {@link RemoteBookChangedEvent}. Searches are ranked with BM25, every query
+ * term must match at least one field and the last term also matches as a prefix.
+ * When an index directory is configured, the index is kept on disk along with
+ * the catalogue stamp it was committed at, and is only rebuilt on startup when
+ * the stamp no longer matches the database
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+@Component
+public class BookSearchIndex {
+
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String AUTHOR = "author";
+    private static final String GENRE = "genre";
+    private static final String DESCRIPTION = "description";
+    private static final String PRICE = "price";
+    private static final String PUBLISHED_YEAR = "publishedYear";
+    private static final String CATALOGUE_STAMP = "catalogueStamp";
+
+    private static final Map<String, Float> FIELD_BOOSTS = new LinkedHashMap<>();
+
+    static {
+        FIELD_BOOSTS.put(NAME, 3.0f);
+        FIELD_BOOSTS.put(AUTHOR, 2.0f);
+        FIELD_BOOSTS.put(GENRE, 1.5f);
+        FIELD_BOOSTS.put(DESCRIPTION, 1.0f);
+    }
+
+    @Autowired
+    private BooksService booksService;
+
+    @Autowired
+    private BooksRepository booksRepository;
+
+    @Autowired
+    private BookShards bookShards;
+
+    @Value("${books.search.max-window:10000}")
+    private int maxWindow;
+
+    @Value("${books.search.index-dir:}")
+    private String indexDir;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private Directory directory;
+    private final AtomicBoolean stale = new AtomicBoolean();
+    private IndexWriter indexWriter;
+    private SearcherManager searcherManager;
+
+    @PostConstruct
+    void open() throws IOException {
+        this.directory = StringUtils.isBlank(this.indexDir)
+                ? new ByteBuffersDirectory() : FSDirectory.open(Paths.get(this.indexDir));
+        this.indexWriter = new IndexWriter(this.directory, new IndexWriterConfig(this.analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(this.indexWriter, null);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        this.searcherManager.close();
+        try {
+            commit(this.booksService.getCatalogueStamp());
+        } catch (Exception ex) {
+            log.error(ex.getLocalizedMessage());
+            this.indexWriter.setLiveCommitData(new HashMap<String, String>().entrySet());
+        }
+        this.indexWriter.close();
+        this.directory.close();
+    }
+
+    /**
+     * Indexes every book of the database, unless the stored index was committed
+     * at the current catalogue stamp
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() throws IOException {
+        long start = System.currentTimeMillis();
+        String stamp = this.booksService.getCatalogueStamp();
+        if (stamp.equals(committedStamp())) {
+            this.searcherManager.maybeRefresh();
+            log.info("Reused the search index of {} books", this.indexWriter.getDocStats().numDocs);
+            return;
+        }
+        this.indexWriter.deleteAll();
+        this.booksService.streamAll(this::index);
+        commit(stamp);
+        this.searcherManager.maybeRefresh();
+        log.info("Indexed {} books in {} ms", this.indexWriter.getDocStats().numDocs,
+                System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        try {
+            if (event.isDelete()) {
+                delete(event.getBookId());
+            } else {
+                index(event.getBook());
+            }
+        } catch (Exception ex) {
+            log.error(ex.getLocalizedMessage());
+        }
+    }
+
+    @EventListener
+    public void onRemoteBookChanged(RemoteBookChangedEvent event) {
+        Long bookId = event.getBookId();
+        try {
+            Optional<BookDTO> book = event.isDeleted() ? Optional.empty()
+                    : this.bookShards.onShardOf(bookId, () -> this.booksRepository.findBookDTOById(bookId));
+            if (book.isPresent()) {
+                index(book.get());
+            } else {
+                delete(bookId);
+            }
+        } catch (Exception ex) {
+            log.error(ex.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Searches the books matching the given text
+     *
+     * @param text free text query
+     * @param page zero based page number
+     * @param size page size
+     * @return Ranked page of matching books {@link BookSearchResultDTO}
+     */
+    public BookSearchResultDTO search(String text, int page, int size) {
+        Query query = buildQuery(text);
+        long from = (long) page * size;
+        int window = (int) Math.min(from + size, this.maxWindow);
+        if (null == query || from >= window) {
+            return new BookSearchResultDTO(0, page, size, Collections.emptyList());
+        }
+        try {
+            if (this.stale.compareAndSet(true, false)) {
+                this.searcherManager.maybeRefresh();
+            }
+            IndexSearcher searcher = this.searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query, window);
+                List<BookDTO> books = new ArrayList<>(size);
+                for (int i = (int) from; i < topDocs.scoreDocs.length; i++) {
+                    ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+                    books.add(toBook(searcher.doc(scoreDoc.doc)));
+                }
+                return new BookSearchResultDTO(topDocs.totalHits.value, page, size, books);
+            } finally {
+                this.searcherManager.release(searcher);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private String committedStamp() {
+        Iterable<Map.Entry<String, String>> commitData = this.indexWriter.getLiveCommitData();
+        if (null != commitData) {
+            for (Map.Entry<String, String> entry : commitData) {
+                if (CATALOGUE_STAMP.equals(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private void commit(String stamp) throws IOException {
+        this.indexWriter.setLiveCommitData(Collections.singletonMap(CATALOGUE_STAMP, stamp).entrySet());
+        this.indexWriter.commit();
+    }
+
+    private void index(BookDTO book) {
+        try {
+            this.indexWriter.updateDocument(new Term(ID, String.valueOf(book.getId())), toDocument(book));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        this.stale.set(true);
+    }
+
+    private void delete(Long bookId) {
+        try {
+            this.indexWriter.deleteDocuments(new Term(ID, String.valueOf(bookId)));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        this.stale.set(true);
+    }
+
+    private Query buildQuery(String text) {
+        List<String> terms = analyze(text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (int i = 0; i < terms.size(); i++) {
+            boolean last = i == terms.size() - 1;
+            BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+            for (Map.Entry<String, Float> field : FIELD_BOOSTS.entrySet()) {
+                Term term = new Term(field.getKey(), terms.get(i));
+                anyField.add(new BoostQuery(new TermQuery(term), field.getValue()), BooleanClause.Occur.SHOULD);
+                if (last) {
+                    anyField.add(new BoostQuery(new PrefixQuery(term), field.getValue() / 2), BooleanClause.Occur.SHOULD);
+                }
+            }
+            query.add(anyField.build(), BooleanClause.Occur.MUST);
+        }
+        return query.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (null == text) {
+            return terms;
+        }
+        try (TokenStream tokens = this.analyzer.tokenStream(NAME, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                terms.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return terms;
+    }
+
+    private static Document toDocument(BookDTO book) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(book.getId()), Field.Store.YES));
+        addText(document, NAME, book.getName());
+        addText(document, AUTHOR, book.getAuthor());
+        addText(document, GENRE, book.getGenre());
+        addText(document, DESCRIPTION, book.getDescription());
+        if (null != book.getPrice()) {
+            document.add(new StoredField(PRICE, book.getPrice()));
+        }
+        if (null != book.getPublishedYear()) {
+            document.add(new StoredField(PUBLISHED_YEAR, book.getPublishedYear()));
+        }
+        return document;
+    }
+
+    private static void addText(Document document, String field, String value) {
+        if (null != value) {
+            document.add(new TextField(field, value, Field.Store.YES));
+        }
+    }
+
+    private static BookDTO toBook(Document document) {
+        IndexableField price = document.getField(PRICE);
+        IndexableField publishedYear = document.getField(PUBLISHED_YEAR);
+        return BookDTO.builder()
+                .id(Long.valueOf(document.get(ID)))
+                .name(document.get(NAME))
+                .author(document.get(AUTHOR))
+                .genre(document.get(GENRE))
+                .description(document.get(DESCRIPTION))
+                .price(null == price ? null : price.numericValue().doubleValue())
+                .publishedYear(null == publishedYear ? null : publishedYear.numericValue().intValue())
+                .build();
+    }
+}
@@ -0,0 +1,167 @@
+package com.bookservice.service;
+
+import com.bookservice.coalesce.SingleFlight;
+import com.bookservice.dto.BookGroupStatsDTO;
+import com.bookservice.dto.BookStatsDTO;
+import com.bookservice.dto.PriceBucketDTO;
+import com.bookservice.event.BookChangedEvent;
+import com.bookservice.event.RemoteBookChangedEvent;
+import com.bookservice.exception.InvalidRequestException;
+import com.bookservice.repository.BookGroupField;
+import com.bookservice.repository.BooksRepository;
+import com.bookservice.sharding.BookShards;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class containing business logic for the statistics of the catalogue. The
+ * aggregates are computed by the database and kept until the next change of the
+ * catalogue, so that repeated requests are answered in the time of the number of
+ * groups rather than of the number of books. At most books.stats.cache-size
+ * combinations of group and bucket width are kept. Concurrent computations of the same
+ * statistics share one set of queries. With several shards, the aggregates of
+ * the shards are merged, averages are weighted by the number of books
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+@Service
+public class BookStatsService {
+
+    @Autowired
+    private BooksRepository booksRepository;
+
+    @Autowired
+    private BookShards bookShards;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${books.stats.min-bucket-width:0.01}")
+    private double minBucketWidth;
+
+    @Value("${books.stats.cache-size:64}")
+    private long cacheSize;
+
+    private Cache<String, BookStatsDTO> stats;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private SingleFlight<String, BookStatsDTO> computeFlight;
+
+    @PostConstruct
+    void init() {
+        this.computeFlight = new SingleFlight<>("stats", this.meterRegistry);
+        this.stats = Caffeine.newBuilder().maximumSize(this.cacheSize).build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        this.generation.incrementAndGet();
+        this.stats.invalidateAll();
+    }
+
+    @EventListener
+    public void onRemoteBookChanged(RemoteBookChangedEvent event) {
+        this.generation.incrementAndGet();
+        this.stats.invalidateAll();
+    }
+
+    /**
+     * Business logic for getting the statistics of the books grouped on an attribute
+     *
+     * @param groupField  grouped attribute {@link BookGroupField}
+     * @param bucketWidth width of the price buckets of the histograms
+     * @return Statistics of every group {@link BookStatsDTO}
+     * @throws InvalidRequestException is thrown if the bucket width is too small or not finite
+     */
+    public BookStatsDTO getStats(BookGroupField groupField, double bucketWidth) {
+        if (!(bucketWidth >= this.minBucketWidth) || Double.isInfinite(bucketWidth)) {
+            throw new InvalidRequestException("The bucket width must be a finite number of at least " + this.minBucketWidth);
+        }
+        String key = groupField.name() + ":" + bucketWidth;
+        BookStatsDTO cachedStats = this.stats.getIfPresent(key);
+        if (null != cachedStats) {
+            return cachedStats;
+        }
+        return this.computeFlight.execute(key, () -> {
+            long computedGeneration = this.generation.get();
+            BookStatsDTO computedStats = compute(groupField, bucketWidth);
+            if (computedGeneration == this.generation.get()) {
+                // not kept when the catalogue changed while computing
+                this.stats.asMap().putIfAbsent(key, computedStats);
+            }
+            return computedStats;
+        });
+    }
+
+    private BookStatsDTO compute(BookGroupField groupField, double bucketWidth) {
+        List<List<BookGroupStatsDTO>> shardGroups = this.bookShards.scatter(
+                shard -> this.booksRepository.findGroupStats(groupField));
+        List<List<Object[]>> shardHistograms = this.bookShards.scatter(
+                shard -> this.booksRepository.findPriceHistograms(groupField, bucketWidth));
+        List<BookGroupStatsDTO> groups = 1 == shardGroups.size() ? shardGroups.get(0) : mergeGroups(shardGroups);
+        Map<Object, Map<Double, Long>> bucketCounts = new HashMap<>(groups.size() * 2);
+        groups.forEach(group -> bucketCounts.put(group.getKey(), new TreeMap<>()));
+        for (List<Object[]> rows : shardHistograms) {
+            for (Object[] row : rows) {
+                Map<Double, Long> counts = bucketCounts.get(row[0]);
+                if (null != counts) {
+                    double bucket = ((Number) Objects.requireNonNull(row[1])).doubleValue();
+                    counts.merge(bucket, ((Number) row[2]).longValue(), Long::sum);
+                }
+            }
+        }
+        for (BookGroupStatsDTO group : groups) {
+            bucketCounts.get(group.getKey()).forEach((bucket, count) -> group.getHistogram()
+                    .add(new PriceBucketDTO(bucket * bucketWidth, (bucket + 1) * bucketWidth, count)));
+        }
+        return new BookStatsDTO(groupField.getAttribute(), bucketWidth, groups);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<BookGroupStatsDTO> mergeGroups(List<List<BookGroupStatsDTO>> shardGroups) {
+        // the database sorts the null group first
+        Map<Object, BookGroupStatsDTO> merged = new TreeMap<>(Comparator.nullsFirst(
+                (left, right) -> ((Comparable) left).compareTo(right)));
+        for (List<BookGroupStatsDTO> groups : shardGroups) {
+            for (BookGroupStatsDTO group : groups) {
+                merged.merge(group.getKey(), group, BookStatsService::mergeGroup);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private static BookGroupStatsDTO mergeGroup(BookGroupStatsDTO left, BookGroupStatsDTO right) {
+        long count = left.getCount() + right.getCount();
+        Double avgPrice = null == left.getAvgPrice() ? right.getAvgPrice() : null == right.getAvgPrice() ? left.getAvgPrice()
+                : (left.getAvgPrice() * left.getCount() + right.getAvgPrice() * right.getCount()) / count;
+        return new BookGroupStatsDTO(left.getKey(), count, min(left.getMinPrice(), right.getMinPrice()),
+                max(left.getMaxPrice(), right.getMaxPrice()), avgPrice);
+    }
+
+    private static Double min(Double left, Double right) {
+        return null == left ? right : null == right ? left : Math.min(left, right);
+    }
+
+    private static Double max(Double left, Double right) {
+        return null == left ? right : null == right ? left : Math.max(left, right);
+    }
+}
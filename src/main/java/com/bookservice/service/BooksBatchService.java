@@ -0,0 +1,274 @@
+package com.bookservice.service;
+
+import com.bookservice.dto.BatchItemResultDTO;
+import com.bookservice.dto.BatchResultDTO;
+import com.bookservice.dto.BookDTO;
+import com.bookservice.event.BookChangedEvent;
+import com.bookservice.metrics.BookMetrics;
+import com.bookservice.model.Book;
+import com.bookservice.repository.BooksRepository;
+import com.bookservice.sharding.BookShards;
+import com.bookservice.util.Utils;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Class containing business logic for bulk operations on Book Entity. Items are
+ * validated one by one and written in chunks, each chunk in its own transaction,
+ * so that Hibernate can group the statements into JDBC batches. When a chunk
+ * fails, its items are retried one at a time to find the offending ones. A
+ * chunk spanning several {@link BookShards} is written as one transaction per
+ * shard
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+@Service
+public class BooksBatchService {
+
+    @Autowired
+    private BooksRepository booksRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private BookMetrics bookMetrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BookShards bookShards;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${books.batch.chunk-size:500}")
+    private int chunkSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        this.transactionTemplate = new TransactionTemplate(this.transactionManager);
+    }
+
+    /**
+     * Business logic for saving new books in bulk
+     *
+     * @param books books to be added {@link BookDTO}
+     * @return Report with one result per book {@link BatchResultDTO}
+     */
+    public BatchResultDTO saveAll(Iterator<BookDTO> books) {
+        return process(books, false, this::insertChunk);
+    }
+
+    /**
+     * Business logic for updating existing books in bulk, every book must
+     * carry the id of the book it replaces
+     *
+     * @param books books to be updated {@link BookDTO}
+     * @return Report with one result per book {@link BatchResultDTO}
+     */
+    public BatchResultDTO updateAll(Iterator<BookDTO> books) {
+        return process(books, true, this::updateChunk);
+    }
+
+    /**
+     * Business logic for deleting existing books in bulk
+     *
+     * @param bookIds ids of the books to be deleted
+     * @return Report with one result per id {@link BatchResultDTO}
+     */
+    public BatchResultDTO deleteAll(List<Long> bookIds) {
+        BatchResultDTO result = new BatchResultDTO();
+        List<IndexedBook> chunk = new ArrayList<>(this.chunkSize);
+        for (int index = 0; index < bookIds.size(); index++) {
+            Long bookId = bookIds.get(index);
+            if (null == bookId) {
+                result.addFailure(index, null, BatchItemResultDTO.Status.INVALID, "The id of the book must not be null!");
+                continue;
+            }
+            chunk.add(new IndexedBook(index, BookDTO.builder().id(bookId).build()));
+            if (chunk.size() == this.chunkSize) {
+                applyChunk(chunk, result, this::deleteChunk);
+                chunk.clear();
+            }
+        }
+        applyChunk(chunk, result, this::deleteChunk);
+        return sorted(result);
+    }
+
+    private BatchResultDTO process(Iterator<BookDTO> books, boolean idRequired,
+                                   Function<List<IndexedBook>, BatchResultDTO> chunkWriter) {
+        BatchResultDTO result = new BatchResultDTO();
+        List<IndexedBook> chunk = new ArrayList<>(this.chunkSize);
+        int index = 0;
+        while (books.hasNext()) {
+            BookDTO book = books.next();
+            String violations = validate(book, idRequired);
+            if (null != violations) {
+                result.addFailure(index, null == book ? null : book.getId(), BatchItemResultDTO.Status.INVALID, violations);
+            } else {
+                if (!idRequired) {
+                    book.setId(this.bookShards.nextId());
+                }
+                chunk.add(new IndexedBook(index, book));
+            }
+            index++;
+            if (chunk.size() == this.chunkSize) {
+                applyChunk(chunk, result, chunkWriter);
+                chunk.clear();
+            }
+        }
+        applyChunk(chunk, result, chunkWriter);
+        return sorted(result);
+    }
+
+    private String validate(BookDTO book, boolean idRequired) {
+        if (null == book) {
+            return "The book must not be null!";
+        }
+        if (idRequired && null == book.getId()) {
+            return "The id of the book must not be null!";
+        }
+        Set<ConstraintViolation<BookDTO>> violations = this.validator.validate(book);
+        if (!violations.isEmpty()) {
+            return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(joining(" "));
+        }
+        if (!Utils.isBookDataValid(Utils.convertToBookEntity(book))) {
+            return "The book data is not valid!";
+        }
+        return null;
+    }
+
+    private void applyChunk(List<IndexedBook> chunk, BatchResultDTO result,
+                            Function<List<IndexedBook>, BatchResultDTO> chunkWriter) {
+        this.bookShards.groupByShard(chunk, item -> item.book.getId()).forEach((shard, shardChunk) ->
+                this.bookShards.onShard(shard, () -> applyShardChunk(shardChunk, result, chunkWriter)));
+    }
+
+    private Void applyShardChunk(List<IndexedBook> chunk, BatchResultDTO result,
+                                 Function<List<IndexedBook>, BatchResultDTO> chunkWriter) {
+        try {
+            merge(result, this.transactionTemplate.execute(status -> chunkWriter.apply(chunk)));
+        } catch (Exception ex) {
+            log.error(ex.getLocalizedMessage());
+            this.bookMetrics.countFailure("batchChunk", ex);
+            for (IndexedBook item : chunk) {
+                try {
+                    merge(result, this.transactionTemplate.execute(
+                            status -> chunkWriter.apply(Collections.singletonList(item))));
+                } catch (Exception itemEx) {
+                    this.bookMetrics.countFailure("batchItem", itemEx);
+                    result.addFailure(item.index, item.book.getId(), BatchItemResultDTO.Status.FAILED,
+                            itemEx.getLocalizedMessage());
+                }
+            }
+        }
+        return null;
+    }
+
+    private BatchResultDTO insertChunk(List<IndexedBook> chunk) {
+        BatchResultDTO result = new BatchResultDTO();
+        List<Book> books = chunk.stream().map(item -> Utils.convertToBookEntity(item.book)).collect(toList());
+        this.booksRepository.saveAll(books);
+        this.entityManager.flush();
+        for (int i = 0; i < chunk.size(); i++) {
+            Book book = books.get(i);
+            this.eventPublisher.publishEvent(BookChangedEvent.upsert(Utils.mapBookEntityToDTO(book)));
+            result.addSuccess(chunk.get(i).index, book.getId(), BatchItemResultDTO.Status.CREATED);
+        }
+        this.entityManager.clear();
+        return result;
+    }
+
+    private BatchResultDTO updateChunk(List<IndexedBook> chunk) {
+        BatchResultDTO result = new BatchResultDTO();
+        Map<Long, Book> existingBooks = findExisting(chunk);
+        for (IndexedBook item : chunk) {
+            Book book = existingBooks.get(item.book.getId());
+            if (null == book) {
+                result.addFailure(item.index, item.book.getId(), BatchItemResultDTO.Status.NOT_FOUND,
+                        "Book with id: " + item.book.getId() + " is not found in the system");
+            } else {
+                Utils.copyBookData(item.book, book);
+                result.addSuccess(item.index, book.getId(), BatchItemResultDTO.Status.UPDATED);
+            }
+        }
+        this.entityManager.flush();
+        existingBooks.values().forEach(book ->
+                this.eventPublisher.publishEvent(BookChangedEvent.upsert(Utils.mapBookEntityToDTO(book))));
+        this.entityManager.clear();
+        return result;
+    }
+
+    private BatchResultDTO deleteChunk(List<IndexedBook> chunk) {
+        BatchResultDTO result = new BatchResultDTO();
+        Map<Long, Book> existingBooks = findExisting(chunk);
+        this.booksRepository.deleteInBatch(existingBooks.values());
+        for (IndexedBook item : chunk) {
+            Long bookId = item.book.getId();
+            if (existingBooks.containsKey(bookId)) {
+                this.eventPublisher.publishEvent(BookChangedEvent.delete(bookId));
+                result.addSuccess(item.index, bookId, BatchItemResultDTO.Status.DELETED);
+            } else {
+                result.addFailure(item.index, bookId, BatchItemResultDTO.Status.NOT_FOUND,
+                        "Book with id: " + bookId + " is not found in the system");
+            }
+        }
+        this.entityManager.clear();
+        return result;
+    }
+
+    private Map<Long, Book> findExisting(List<IndexedBook> chunk) {
+        List<Long> bookIds = chunk.stream().map(item -> item.book.getId()).distinct().collect(toList());
+        return this.booksRepository.findByIdIn(bookIds).stream()
+                .collect(toMap(Book::getId, Function.identity()));
+    }
+
+    private static void merge(BatchResultDTO result, BatchResultDTO chunkResult) {
+        result.setSucceeded(result.getSucceeded() + chunkResult.getSucceeded());
+        result.setFailed(result.getFailed() + chunkResult.getFailed());
+        result.getItems().addAll(chunkResult.getItems());
+    }
+
+    private static BatchResultDTO sorted(BatchResultDTO result) {
+        result.getItems().sort(Comparator.comparingInt(BatchItemResultDTO::getIndex));
+        return result;
+    }
+
+    @AllArgsConstructor
+    private static class IndexedBook {
+        private final int index;
+        private final BookDTO book;
+    }
+}
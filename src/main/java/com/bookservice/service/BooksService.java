@@ -1,26 +1,66 @@
 package com.bookservice.service;
 
+import com.bookservice.cache.BookCache;
+import com.bookservice.cache.BookIdFilter;
+import com.bookservice.coalesce.BookBatchLoader;
+import com.bookservice.coalesce.SingleFlight;
+import com.bookservice.config.ExecutorConfig;
 import com.bookservice.dto.BookDTO;
-import com.bookservice.exception.BookNotFoundException;
+import com.bookservice.dto.BookFilterDTO;
+import com.bookservice.dto.BookPatchDTO;
+import com.bookservice.dto.BookSelectionDTO;
+import com.bookservice.event.BookChangedEvent;
 import com.bookservice.exception.InvalidBookDataException;
-import com.bookservice.exception.NoBooksFoundException;
+import com.bookservice.exception.PreconditionFailedException;
+import com.bookservice.metrics.BookMetrics;
+import com.bookservice.metrics.MissRecorder;
+import com.bookservice.repository.BookKeyset;
+import com.bookservice.repository.BookSortField;
+import com.bookservice.repository.BookSpecifications;
 import com.bookservice.repository.BooksRepository;
+import com.bookservice.routing.ReadYourWrites;
+import com.bookservice.sharding.BookShards;
 import com.bookservice.util.Utils;
+import com.bookservice.writebehind.PriceWriteBehindBuffer;
 import com.bookservice.model.Book;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
 
 /**
- * Class containing business logic for the operations on Book Entity
+ * Class containing business logic for the operations on Book Entity. Reads go
+ * through the read-only repository methods and may be served by a replica, a
+ * client pinned to the primary by {@link ReadYourWrites} does not share the
+ * coalesced or batched loads of the other clients. The operations on one book
+ * run on its shard, the lists are gathered from all the {@link BookShards}
  *
  * @author NIHARIKA GADDE
  */
@@ -31,119 +71,502 @@ public class BooksService {
     @Autowired
     private BooksRepository booksRepository;
 
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private BookIdFilter bookIdFilter;
+
+    @Autowired
+    private BookShards bookShards;
+
+    @Autowired
+    private MissRecorder missRecorder;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BookMetrics bookMetrics;
+
+    @Autowired
+    @Qualifier(ExecutorConfig.MULTI_GET_EXECUTOR)
+    private Executor multiGetExecutor;
+
+    @Value("${books.select.batch-size:100}")
+    private int selectBatchSize;
+
+    @Autowired
+    private BookBatchLoader bookBatchLoader;
+
+    @Autowired
+    private PriceWriteBehindBuffer priceWriteBehindBuffer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${books.coalescing.enabled:true}")
+    private boolean coalescingEnabled;
+
+    private static final String SELECT_ALL_BOOKS = "select id, name, author, genre, description, price, "
+            + "published_year, version, last_modified from book order by id";
+
+    private static final RowMapper<BookDTO> BOOK_ROW_MAPPER = (rs, rowNum) -> new BookDTO(rs.getLong("id"),
+            rs.getString("name"), rs.getString("author"), rs.getString("genre"), rs.getString("description"),
+            (Double) rs.getObject("price"), (Integer) rs.getObject("published_year"), (Long) rs.getObject("version"),
+            null == rs.getTimestamp("last_modified") ? null : rs.getTimestamp("last_modified").toInstant());
+
+    private static final Comparator<BookDTO> BY_ID = Comparator.comparing(BookDTO::getId);
+
+    private SingleFlight<Long, Optional<BookDTO>> findByIdFlight;
+    private SingleFlight<String, List<BookDTO>> findListFlight;
+
+    @PostConstruct
+    void init() {
+        this.findByIdFlight = new SingleFlight<>("findById", this.meterRegistry);
+        this.findListFlight = new SingleFlight<>("findList", this.meterRegistry);
+    }
+
     /**
      * Business logic for saving a new book, before saving the book
-     * data is validated
+     * data is validated. The book gets a new id, which picks its shard. The
+     * change log entry is written in the same transaction
      *
      * @param bookDto {@link Book} model
      * @return Optional of Added Book {@link Book}
      * @throws InvalidBookDataException is thrown if book data is not valid
      */
+    @Transactional
     public Optional<BookDTO> save(BookDTO bookDto) {
         try {
-            return Optional.ofNullable(
-                    Utils.mapBookEntityToDTO(
-                            this.booksRepository.save(Utils.convertToBookEntity(bookDto))));
+            Book bookToSave = this.bookMetrics.timeMapping(() -> Utils.convertToBookEntity(bookDto));
+            bookToSave.setId(this.bookShards.nextId());
+            return this.bookShards.onShardOf(bookToSave.getId(), () -> {
+                Book book = this.booksRepository.saveAndFlush(bookToSave);
+                BookDTO savedBook = this.bookMetrics.timeMapping(() -> Utils.mapBookEntityToDTO(book));
+                this.eventPublisher.publishEvent(BookChangedEvent.upsert(savedBook));
+                return Optional.ofNullable(savedBook);
+            });
         } catch (Exception ex) {
-            log.error(ex.getLocalizedMessage());
+            logFailure("save", ex);
         }
         return Optional.empty();
     }
 
     /**
-     * Business logic for finding an book using its ID
+     * Business logic for finding an book using its ID. Books are served from
+     * the {@link BookCache} when present, and cached once loaded otherwise.
+     * Concurrent misses of the same id share one load, and the loads of
+     * different ids within the batch window are fetched with one query. Ids
+     * rejected by the {@link BookIdFilter} are not looked up at all. A failed
+     * load is rethrown rather than reported as a missing book
      *
      * @param bookId
-     * @return Optional of Found Book {@link Book}
-     * @throws BookNotFoundException is thrown if book is not found
+     * @return Optional of Found Book {@link Book}, empty if book is not found
      */
     public Optional<BookDTO> findById(Long bookId) {
-        Optional<Book> foundBook = Optional.empty();
+        Optional<BookDTO> cachedBook = this.bookCache.get(bookId);
+        if (cachedBook.isPresent()) {
+            return cachedBook;
+        }
+        if (!this.bookIdFilter.mightContain(bookId)) {
+            this.missRecorder.recordMiss("findById", MissRecorder.SOURCE_FILTER, bookId);
+            return Optional.empty();
+        }
+        Optional<BookDTO> foundBook;
         try {
-            foundBook = this.booksRepository.findById(bookId);
-        } catch (Exception ex) {
-            log.error(ex.getLocalizedMessage());
+            foundBook = coalesce(this.findByIdFlight, bookId, () -> loadById(bookId));
+        } catch (RuntimeException ex) {
+            logFailure("findById", ex);
+            throw ex;
         }
         if (!foundBook.isPresent()) {
-            throw new BookNotFoundException("Book with id: "
-                    + bookId + " is not found in the system");
+            this.missRecorder.recordMiss("findById", MissRecorder.SOURCE_DATABASE, bookId);
+            return foundBook;
         }
-        return Optional.ofNullable(Utils.mapBookEntityToDTO(foundBook.get()));
+        this.bookCache.put(foundBook.get());
+        return foundBook;
+    }
+
+    /**
+     * Business logic for finding the current version of a book without reading
+     * the database, for answering conditional requests
+     *
+     * @param bookId
+     * @return Optional of the version, empty if it is not known by the {@link BookCache}
+     */
+    public Optional<Long> findCachedVersion(Long bookId) {
+        return this.bookCache.knownVersion(bookId);
     }
 
     /**
      * Business logic for updating an existing book, before updation the
-     * book data is validated
+     * book data is validated. The book data is copied onto the loaded entity
+     * and flushed right away, so that the returned book carries the new version
      *
      * @param bookId and updatedBook {@link Book} model
      * @return Optional of Updated Book {@link Book}
      * @throws InvalidBookDataException is thrown if book data is not valid
      */
+    @Transactional
     public Optional<BookDTO> updateById(Long bookId, BookDTO updatedBookDTO) {
-        Optional<Book> foundBook = Optional.empty();
+        return updateById(bookId, updatedBookDTO, null);
+    }
+
+    /**
+     * Business logic for updating an existing book only if its current ETag
+     * matches the given If-Match header value
+     *
+     * @param bookId and updatedBook {@link Book} model
+     * @param ifMatch If-Match header value, null to update unconditionally
+     * @return Optional of Updated Book {@link Book}, empty if book is not found
+     * @throws PreconditionFailedException is thrown if the book has been modified
+     * @throws org.springframework.dao.OptimisticLockingFailureException is thrown if
+     *                                     the book is modified concurrently
+     */
+    @Transactional
+    public Optional<BookDTO> updateById(Long bookId, BookDTO updatedBookDTO, String ifMatch) {
+        return this.bookShards.onShardOf(bookId, () -> updateOnShard(bookId, updatedBookDTO, ifMatch));
+    }
+
+    private Optional<BookDTO> updateOnShard(Long bookId, BookDTO updatedBookDTO, String ifMatch) {
+        if (!this.bookIdFilter.mightContain(bookId)) {
+            this.missRecorder.recordMiss("updateById", MissRecorder.SOURCE_FILTER, bookId);
+            return Optional.empty();
+        }
+        Optional<Book> foundBook = this.booksRepository.findById(bookId);
+        if (!foundBook.isPresent()) {
+            this.missRecorder.recordMiss("updateById", MissRecorder.SOURCE_DATABASE, bookId);
+            return Optional.empty();
+        }
+        Book updatedBook = foundBook.get();
+        if (null != ifMatch && !Utils.matchesETagStrongly(ifMatch, Utils.getBookETag(bookId, updatedBook.getVersion()))) {
+            throw new PreconditionFailedException("Book with id: "
+                    + bookId + " has been modified");
+        }
         try {
-            if (null != bookId) {
-                foundBook = this.booksRepository.findById(bookId);
-            }
-            if (foundBook.isPresent()) {
-                Book updatedBook = Utils.convertToBookEntity(updatedBookDTO);
-                updatedBook.setId(foundBook.get().getId());
-                this.booksRepository.save(updatedBook);
-                return Optional.ofNullable(Utils.mapBookEntityToDTO(updatedBook));
-            }
-        } catch (Exception ex) {
-            log.error(ex.getLocalizedMessage());
+            Utils.copyBookData(updatedBookDTO, updatedBook);
+            Book savedBook = this.booksRepository.saveAndFlush(updatedBook);
+            BookDTO book = this.bookMetrics.timeMapping(() -> Utils.mapBookEntityToDTO(savedBook));
+            this.eventPublisher.publishEvent(BookChangedEvent.upsert(book));
+            return Optional.ofNullable(book);
+        } catch (RuntimeException ex) {
+            logFailure("updateById", ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Business logic for partially updating an existing book. Only the fields
+     * set in the patch are copied onto the loaded entity, and only the changed
+     * columns are written
+     *
+     * @param bookId  id of the book
+     * @param patch   fields to change {@link BookPatchDTO}
+     * @param ifMatch If-Match header value, null to update unconditionally
+     * @return Optional of Updated Book {@link BookDTO}, empty if book is not found
+     * @throws InvalidBookDataException is thrown if the patched book is not valid
+     * @throws PreconditionFailedException is thrown if the book has been modified
+     */
+    @Transactional
+    public Optional<BookDTO> patchById(Long bookId, BookPatchDTO patch, String ifMatch) {
+        return this.bookShards.onShardOf(bookId, () -> patchOnShard(bookId, patch, ifMatch));
+    }
+
+    private Optional<BookDTO> patchOnShard(Long bookId, BookPatchDTO patch, String ifMatch) {
+        if (!this.bookIdFilter.mightContain(bookId)) {
+            this.missRecorder.recordMiss("patchById", MissRecorder.SOURCE_FILTER, bookId);
+            return Optional.empty();
+        }
+        Optional<Book> foundBook = this.booksRepository.findById(bookId);
+        if (!foundBook.isPresent()) {
+            this.missRecorder.recordMiss("patchById", MissRecorder.SOURCE_DATABASE, bookId);
+            return Optional.empty();
+        }
+        Book book = foundBook.get();
+        if (null != ifMatch && !Utils.matchesETagStrongly(ifMatch, Utils.getBookETag(bookId, book.getVersion()))) {
+            throw new PreconditionFailedException("Book with id: "
+                    + bookId + " has been modified");
+        }
+        Utils.applyBookPatch(patch, book);
+        if (!Utils.isBookDataValid(book)) {
+            throw new InvalidBookDataException("The patched book with id: " + bookId + " is not valid");
+        }
+        try {
+            Book savedBook = this.booksRepository.saveAndFlush(book);
+            BookDTO patchedBook = this.bookMetrics.timeMapping(() -> Utils.mapBookEntityToDTO(savedBook));
+            this.eventPublisher.publishEvent(BookChangedEvent.upsert(patchedBook));
+            return Optional.of(patchedBook);
+        } catch (RuntimeException ex) {
+            logFailure("patchById", ex);
+            throw ex;
         }
-        return Optional.empty();
     }
 
     /**
-     * Business logic for getting all the books present in the system
+     * Business logic for handing a new price of a book to the
+     * {@link PriceWriteBehindBuffer}. The book keeps its current price until the
+     * buffer is flushed, and the price is dropped if the book is written in the
+     * meantime
      *
-     * @return List of Books {@link Book}
-     * @throws NoBooksFoundException is thrown if no books are present
+     * @param bookId id of the book
+     * @param price  new price of the book
+     * @return true if the update is buffered, false if it must be written with
+     * {@link #patchById(Long, BookPatchDTO, String)}
+     * @throws InvalidBookDataException is thrown if the price is not valid
+     */
+    public boolean bufferPriceUpdate(Long bookId, double price) {
+        if (!this.priceWriteBehindBuffer.isEnabled() || !this.bookIdFilter.mightContain(bookId)) {
+            return false;
+        }
+        if (!(price > 0) || Double.isInfinite(price)) {
+            throw new InvalidBookDataException("The price of the book must be positive and finite!");
+        }
+        Optional<BookDTO> book = findById(bookId);
+        if (!book.isPresent() || null == book.get().getVersion()) {
+            return false;
+        }
+        return this.priceWriteBehindBuffer.offer(bookId, price, book.get().getVersion());
+    }
+
+    /**
+     * Business logic for getting all the books present in the system. Concurrent
+     * calls share one query
+     *
+     * @return List of Books {@link Book}, empty if no books are present
      */
     public List<BookDTO> findAll() {
-        List<Book> allBooks = Collections.emptyList();
+        List<BookDTO> allBooks = Collections.emptyList();
         try {
-            allBooks = this.booksRepository.findAll();
+            allBooks = coalesce(this.findListFlight, "all", () -> BookShards.merge(
+                    this.bookShards.scatter(shard -> this.booksRepository.findAllBookDTOs()), BY_ID, Integer.MAX_VALUE));
         } catch (Exception ex) {
-            log.error(ex.getLocalizedMessage());
+            logFailure("findAll", ex);
         }
-        if (null == allBooks || allBooks.isEmpty()) {
-            throw new NoBooksFoundException("No books found in the database");
+        this.bookMetrics.recordResultSize("findAll", null == allBooks ? 0 : allBooks.size());
+        return null == allBooks ? Collections.emptyList() : allBooks;
+    }
+
+    /**
+     * Business logic for getting a keyset page of books ordered by id
+     *
+     * @param afterId id of the last book of the previous page, null for the first page
+     * @param limit   maximum number of books in the page
+     * @return List of Books {@link Book}, empty past the last book
+     */
+    public List<BookDTO> findPage(Long afterId, int limit) {
+        List<BookDTO> books = Collections.emptyList();
+        try {
+            long fromId = null == afterId ? 0L : afterId;
+            books = coalesce(this.findListFlight, "page:" + fromId + ":" + limit, () -> BookShards.merge(
+                    this.bookShards.scatter(shard -> this.booksRepository.findPageAfter(fromId, PageRequest.of(0, limit))),
+                    BY_ID, limit));
+        } catch (Exception ex) {
+            logFailure("findPage", ex);
         }
-        return allBooks.stream().map(Utils::mapBookEntityToDTO).collect(toList());
+        this.bookMetrics.recordResultSize("findPage", null == books ? 0 : books.size());
+        return null == books ? Collections.emptyList() : books;
+    }
+
+    /**
+     * Business logic for fetching a keyset page of the books matching the given
+     * filters. Every filter is an equality or a range on an indexed column
+     *
+     * @param filter     filters of the books {@link BookFilterDTO}
+     * @param sortField  sorted column {@link BookSortField}
+     * @param descending true to sort in descending order
+     * @param after      cursor of the last book of the previous page, may be null
+     * @param limit      maximum number of books
+     * @return List of BookDTOs {@link BookDTO}, empty if no book matches
+     * @throws InvalidBookDataException is thrown if the cursor is malformed
+     */
+    public List<BookDTO> findFiltered(BookFilterDTO filter, BookSortField sortField, boolean descending,
+                                      String after, int limit) {
+        BookKeyset keyset = null;
+        if (null != after) {
+            try {
+                keyset = BookKeyset.decode(sortField, after);
+            } catch (IllegalArgumentException ex) {
+                throw new InvalidBookDataException("Invalid cursor: " + after);
+            }
+        }
+        List<BookDTO> books = Collections.emptyList();
+        BookKeyset from = keyset;
+        try {
+            books = BookShards.merge(this.bookShards.scatter(shard -> this.booksRepository.findFiltered(
+                    BookSpecifications.matching(filter), sortField, descending, from, limit)),
+                    sortField.comparator(descending), limit);
+        } catch (Exception ex) {
+            logFailure("findFiltered", ex);
+        }
+        this.bookMetrics.recordResultSize("findFiltered", null == books ? 0 : books.size());
+        return null == books ? Collections.emptyList() : books;
+    }
+
+    /**
+     * Business logic for streaming all the books present in the system ordered
+     * by id. The books are projected straight into DTOs, so the persistence
+     * context does not grow with the size of the table. With several shards,
+     * a cursor is opened on every shard and the rows are merged on the id
+     *
+     * @param consumer receives every book {@link BookDTO}
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<BookDTO> consumer) {
+        if (this.bookShards.count() > 1) {
+            this.bookShards.forEachMerged(SELECT_ALL_BOOKS, 500, BOOK_ROW_MAPPER, BY_ID, consumer);
+            return;
+        }
+        try (Stream<BookDTO> books = this.booksRepository.streamAll()) {
+            books.forEach(consumer);
+        }
+    }
+
+    /**
+     * Business logic for computing a stamp of the catalogue state from the number
+     * of books and their latest modification time. The stamp changes with every
+     * insert, update and delete
+     *
+     * @return stamp of the catalogue
+     */
+    public String getCatalogueStamp() {
+        long count = this.bookShards.scatter(shard -> this.booksRepository.count()).stream()
+                .mapToLong(Long::longValue).sum();
+        Instant lastModified = this.bookShards.scatter(shard -> this.booksRepository.findLastModified()).stream()
+                .filter(Objects::nonNull).max(Comparator.naturalOrder()).orElse(null);
+        return count + "-" + lastModified;
     }
 
     /**
-     * Business logic for deleting an existing book
+     * Business logic for deleting an existing book with a single delete
+     * statement. The change log entry is written in the same transaction
      *
      * @param bookId
-     * @throws BookNotFoundException is thrown if book is not found
+     * @return number of deleted books, 0 if book is not found or could not be deleted
      */
-    public void deleteById(Long bookId) {
+    @Transactional
+    public int deleteById(Long bookId) {
+        if (!this.bookIdFilter.mightContain(bookId)) {
+            this.missRecorder.recordMiss("deleteById", MissRecorder.SOURCE_FILTER, bookId);
+            return 0;
+        }
+        int deleted = 0;
         try {
-            this.booksRepository.deleteById(bookId);
-        } catch (EmptyResultDataAccessException ex) {
-            log.error(ex.getLocalizedMessage());
-            throw new BookNotFoundException("Book with id: "
-                    + bookId + " is not found in the system");
+            deleted = this.bookShards.onShardOf(bookId, () -> this.booksRepository.deleteBookById(bookId));
         } catch (Exception ex) {
-            log.error(ex.getLocalizedMessage());
+            logFailure("deleteById", ex);
         }
+        if (0 == deleted) {
+            this.missRecorder.recordMiss("deleteById", MissRecorder.SOURCE_DATABASE, bookId);
+        } else {
+            this.eventPublisher.publishEvent(BookChangedEvent.delete(bookId));
+        }
+        return deleted;
     }
 
+    /**
+     * Business logic for getting the books of the given ids, in request order
+     *
+     * @param bookIds
+     * @return List of Books {@link Book}, empty if none of the books is found
+     */
     public List<BookDTO> findByIdIn(List<Long> bookIds) {
-        List<Book> allBooks = Collections.emptyList();
+        return selectByIds(bookIds).getBooks();
+    }
+
+    /**
+     * Business logic for getting the books of the given ids. The ids are
+     * deduplicated and served from the {@link BookCache} when possible, the ids
+     * rejected by the {@link BookIdFilter} are missing right away. The
+     * remaining ids are fetched in fixed size IN batches, padded with the last
+     * id of the batch so that every query has the same shape, and the batches
+     * run in parallel. A failed batch fails the whole selection, so that an
+     * unreachable database is never reported as missing books
+     *
+     * @param bookIds
+     * @return Found books in request order and the missing ids {@link BookSelectionDTO}
+     */
+    public BookSelectionDTO selectByIds(List<Long> bookIds) {
+        Set<Long> uniqueIds = new LinkedHashSet<>();
+        if (null != bookIds) {
+            bookIds.stream().filter(Objects::nonNull).forEach(uniqueIds::add);
+        }
+        Map<Long, BookDTO> foundBooks = new HashMap<>(uniqueIds.size() * 2);
+        List<Long> idsToFetch = new ArrayList<>();
+        for (Long bookId : uniqueIds) {
+            Optional<BookDTO> cachedBook = this.bookCache.get(bookId);
+            if (cachedBook.isPresent()) {
+                foundBooks.put(bookId, cachedBook.get());
+            } else if (this.bookIdFilter.mightContain(bookId)) {
+                idsToFetch.add(bookId);
+            } else {
+                this.missRecorder.recordMiss("findByIdIn", MissRecorder.SOURCE_FILTER, bookId);
+            }
+        }
+        List<Supplier<List<BookDTO>>> batches = new ArrayList<>();
+        this.bookShards.groupByShard(idsToFetch, Function.identity()).forEach((shard, shardIds) ->
+                paddedBatches(shardIds, this.selectBatchSize).forEach(batch ->
+                        batches.add(() -> this.bookShards.onShard(shard, () -> fetchBatch(batch)))));
+        if (batches.size() == 1) {
+            batches.get(0).get().forEach(book -> foundBooks.put(book.getId(), book));
+        } else if (batches.size() > 1) {
+            List<CompletableFuture<List<BookDTO>>> futures = batches.stream()
+                    .map(batch -> CompletableFuture.supplyAsync(batch, this.multiGetExecutor))
+                    .collect(toList());
+            futures.forEach(future -> future.join().forEach(book -> foundBooks.put(book.getId(), book)));
+        }
+        List<BookDTO> books = new ArrayList<>(foundBooks.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long bookId : uniqueIds) {
+            BookDTO book = foundBooks.get(bookId);
+            if (null != book) {
+                books.add(book);
+            } else {
+                missingIds.add(bookId);
+            }
+        }
+        this.bookMetrics.recordResultSize("findByIdIn", books.size());
+        return new BookSelectionDTO(books, missingIds);
+    }
+
+    private List<BookDTO> fetchBatch(List<Long> batch) {
+        List<BookDTO> books;
         try {
-            allBooks = this.booksRepository.findByIdIn(bookIds);
-        } catch (Exception ex) {
-            log.error(ex.getLocalizedMessage());
+            books = this.booksRepository.findBookDTOsByIdIn(batch);
+        } catch (RuntimeException ex) {
+            logFailure("findByIdIn", ex);
+            throw ex;
+        }
+        books.forEach(this.bookCache::put);
+        return books;
+    }
+
+    private static List<List<Long>> paddedBatches(List<Long> ids, int batchSize) {
+        List<List<Long>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = new ArrayList<>(ids.subList(from, Math.min(from + batchSize, ids.size())));
+            Long padding = batch.get(batch.size() - 1);
+            while (batch.size() < batchSize) {
+                batch.add(padding);
+            }
+            batches.add(batch);
         }
-        if (null == allBooks || allBooks.isEmpty()) {
-            throw new NoBooksFoundException("No books found in the database");
+        return batches;
+    }
+
+    private Optional<BookDTO> loadById(Long bookId) {
+        if (this.bookBatchLoader.isEnabled() && !ReadYourWrites.isPinned()) {
+            return this.bookBatchLoader.load(bookId).join();
         }
-        return allBooks.stream().map(Utils::mapBookEntityToDTO).collect(toList());
+        return this.bookShards.onShardOf(bookId, () -> this.booksRepository.findBookDTOById(bookId));
+    }
+
+    private <K, V> V coalesce(SingleFlight<K, V> flight, K key, Supplier<V> call) {
+        return this.coalescingEnabled && !ReadYourWrites.isPinned() ? flight.execute(key, call) : call.get();
+    }
+
+    private void logFailure(String operation, Exception ex) {
+        log.error("Book operation {} failed", operation, ex);
+        this.bookMetrics.countFailure(operation, ex);
     }
 }
@@ -0,0 +1,40 @@
+package com.bookservice.sharding;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * Hibernate generator of the book ids. The services assign the id before
+ * saving a book, so that they know its shard; a book saved without one gets
+ * the next {@link SnowflakeIds} id of the node set with the books.id.node-id
+ * Hibernate setting
+ *
+ * @author NIHARIKA GADDE
+ */
+public class BookIdGenerator implements IdentifierGenerator, Configurable {
+
+    public static final String NODE_ID_SETTING = "books.id.node-id";
+
+    private SnowflakeIds ids;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object nodeId = serviceRegistry.getService(ConfigurationService.class).getSettings().get(NODE_ID_SETTING);
+        this.ids = SnowflakeIds.forNode(null == nodeId ? 0 : Integer.parseInt(nodeId.toString().trim()));
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        Serializable assignedId = session.getEntityPersister(null, object).getIdentifier(object, session);
+        return null != assignedId ? assignedId : this.ids.nextId();
+    }
+}
@@ -0,0 +1,345 @@
+package com.bookservice.sharding;
+
+import com.bookservice.config.ExecutorConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Placement of the books on the shards. A book lives on the shard picked by a
+ * hash of its id, the ids are allocated by the {@link SnowflakeIds} of this
+ * node before the book is saved. Point operations run on the shard of their
+ * id, the queries over several books are scattered to every shard in parallel
+ * and their sorted results are merged. Without books.shards.urls there is a
+ * single shard and the work runs on the calling thread
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+@Component
+public class BookShards {
+
+    private static final long FIBONACCI_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final ShardRoutingDataSource shardRouting;
+    private final Executor shardExecutor;
+    private final SnowflakeIds ids;
+    private final int count;
+
+    public BookShards(ObjectProvider<ShardRoutingDataSource> shardRouting,
+                      @Qualifier(ExecutorConfig.SHARD_EXECUTOR) Executor shardExecutor,
+                      @Value("${books.id.node-id:0}") int nodeId) {
+        this.shardRouting = shardRouting.getIfAvailable();
+        this.shardExecutor = shardExecutor;
+        this.ids = SnowflakeIds.forNode(nodeId);
+        this.count = null == this.shardRouting ? 1 : this.shardRouting.size();
+    }
+
+    /**
+     * @return number of shards
+     */
+    public int count() {
+        return this.count;
+    }
+
+    /**
+     * @return a new book id, unique across the nodes
+     */
+    public long nextId() {
+        return this.ids.nextId();
+    }
+
+    /**
+     * @param bookId id of a book
+     * @return shard holding the book
+     */
+    public int shardOf(long bookId) {
+        if (1 == this.count) {
+            return 0;
+        }
+        // the low bits of the ids are mostly sequence and node, mix them into the high bits
+        return (int) (((bookId * FIBONACCI_MULTIPLIER) >>> 32) % this.count);
+    }
+
+    /**
+     * Runs work on the given shard, the connections taken by the work (and the
+     * transactions it opens) go to that shard
+     *
+     * @param shard shard index
+     * @param work  work to run
+     * @return result of the work
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (1 == this.count) {
+            return work.get();
+        }
+        Integer previous = ShardContext.get();
+        ShardContext.set(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    /**
+     * Runs work on the shard holding the given book
+     *
+     * @param bookId id of the book
+     * @param work   work to run
+     * @return result of the work
+     */
+    public <T> T onShardOf(long bookId, Supplier<T> work) {
+        return onShard(shardOf(bookId), work);
+    }
+
+    /**
+     * Runs work on every shard in parallel
+     *
+     * @param work work to run, given the shard index
+     * @return results of the shards, in shard order
+     */
+    public <T> List<T> scatter(IntFunction<T> work) {
+        if (1 == this.count) {
+            return Collections.singletonList(work.apply(0));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(this.count);
+        for (int shard = 0; shard < this.count; shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> onShard(target, () -> work.apply(target)), this.shardExecutor));
+        }
+        return futures.stream().map(BookShards::join).collect(toList());
+    }
+
+    /**
+     * Groups items by the shard of their book id
+     *
+     * @param items  items to group
+     * @param bookId book id of an item
+     * @return items of every shard holding at least one of them, in shard order
+     */
+    public <E> Map<Integer, List<E>> groupByShard(Collection<E> items, Function<E, Long> bookId) {
+        Map<Integer, List<E>> groups = new TreeMap<>();
+        for (E item : items) {
+            groups.computeIfAbsent(shardOf(bookId.apply(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    /**
+     * Runs a query over book ids on the shards holding them, in parallel
+     *
+     * @param bookIds ids of the books
+     * @param query   query of the ids of one shard
+     * @return results of the shards, concatenated
+     */
+    public <T> List<T> gatherByIds(Collection<Long> bookIds, Function<List<Long>, List<T>> query) {
+        Map<Integer, List<Long>> groups = groupByShard(bookIds, Function.identity());
+        if (groups.size() <= 1) {
+            return groups.isEmpty() ? Collections.emptyList()
+                    : onShard(groups.keySet().iterator().next(), () -> query.apply(groups.values().iterator().next()));
+        }
+        List<CompletableFuture<List<T>>> futures = groups.entrySet().stream()
+                .map(group -> CompletableFuture.supplyAsync(
+                        () -> onShard(group.getKey(), () -> query.apply(group.getValue())), this.shardExecutor))
+                .collect(toList());
+        List<T> results = new ArrayList<>(bookIds.size());
+        futures.forEach(future -> results.addAll(join(future)));
+        return results;
+    }
+
+    /**
+     * Runs a query on every shard through its own cursor and hands the rows to
+     * the consumer in merged order, only the current row of every shard is held
+     *
+     * @param sql        query, sorted in the order of the comparator
+     * @param fetchSize  JDBC fetch size of the cursors
+     * @param rowMapper  mapper of the rows
+     * @param comparator order of the rows
+     * @param consumer   receives every row
+     */
+    public <T> void forEachMerged(String sql, int fetchSize, RowMapper<T> rowMapper, Comparator<? super T> comparator,
+                                  Consumer<T> consumer) {
+        List<Cursor<T>> cursors = new ArrayList<>(this.count);
+        try {
+            for (int shard = 0; shard < this.count; shard++) {
+                cursors.add(new Cursor<>(this.shardRouting.getShard(shard).getConnection(), sql, fetchSize, rowMapper));
+            }
+            merge(cursors, comparator).forEachRemaining(consumer);
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex.getLocalizedMessage(), ex);
+        } finally {
+            cursors.forEach(Cursor::close);
+        }
+    }
+
+    /**
+     * K-way merge of sorted lists
+     *
+     * @param sorted     lists sorted in the order of the comparator
+     * @param comparator order of the lists
+     * @param limit      maximum number of elements
+     * @return the first elements of the merged lists
+     */
+    public static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> comparator, int limit) {
+        if (1 == sorted.size()) {
+            List<T> only = sorted.get(0);
+            return only.size() <= limit ? only : new ArrayList<>(only.subList(0, limit));
+        }
+        List<T> merged = new ArrayList<>(Math.min(limit, sorted.stream().mapToInt(List::size).sum()));
+        Iterator<T> elements = merge(sorted.stream().map(List::iterator).collect(toList()), comparator);
+        while (merged.size() < limit && elements.hasNext()) {
+            merged.add(elements.next());
+        }
+        return merged;
+    }
+
+    /**
+     * Lazy k-way merge of sorted iterators, ties are taken in iterator order
+     *
+     * @param sorted     iterators sorted in the order of the comparator
+     * @param comparator order of the iterators
+     * @return iterator over the merged elements
+     */
+    public static <T> Iterator<T> merge(List<? extends Iterator<? extends T>> sorted, Comparator<? super T> comparator) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, sorted.size()), (left, right) -> {
+            int order = comparator.compare(left.element, right.element);
+            return 0 != order ? order : Integer.compare(left.source, right.source);
+        });
+        for (int source = 0; source < sorted.size(); source++) {
+            Head.advance(heads, sorted.get(source), source);
+        }
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Head<T> head = heads.poll();
+                if (null == head) {
+                    throw new NoSuchElementException();
+                }
+                Head.advance(heads, head.iterator, head.source);
+                return head.element;
+            }
+        };
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private static class Head<T> {
+        private final T element;
+        private final Iterator<? extends T> iterator;
+        private final int source;
+
+        private Head(T element, Iterator<? extends T> iterator, int source) {
+            this.element = element;
+            this.iterator = iterator;
+            this.source = source;
+        }
+
+        private static <T> void advance(PriorityQueue<Head<T>> heads, Iterator<? extends T> iterator, int source) {
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), iterator, source));
+            }
+        }
+    }
+
+    /**
+     * Forward-only cursor over the rows of one shard
+     */
+    private static class Cursor<T> implements Iterator<T>, AutoCloseable {
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+        private final RowMapper<T> rowMapper;
+        private int rowNum;
+        private Boolean hasNext;
+
+        private Cursor(Connection connection, String sql, int fetchSize, RowMapper<T> rowMapper) throws SQLException {
+            this.connection = connection;
+            this.rowMapper = rowMapper;
+            try {
+                this.connection.setReadOnly(true);
+                this.statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                this.statement.setFetchSize(fetchSize);
+                this.resultSet = this.statement.executeQuery();
+            } catch (SQLException ex) {
+                connection.close();
+                throw ex;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (null == this.hasNext) {
+                try {
+                    this.hasNext = this.resultSet.next();
+                } catch (SQLException ex) {
+                    throw new IllegalStateException(ex.getLocalizedMessage(), ex);
+                }
+            }
+            return this.hasNext;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            this.hasNext = null;
+            try {
+                return this.rowMapper.mapRow(this.resultSet, this.rowNum++);
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex.getLocalizedMessage(), ex);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                this.connection.close();
+            } catch (SQLException ex) {
+                log.error(ex.getLocalizedMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.bookservice.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lease of the books.id.node-id of this node in the node_lease table of the
+ * primary, so that two nodes sharing the database never allocate the same
+ * {@link SnowflakeIds}. The lease is taken at startup, which fails if another
+ * node holds it, renewed every third of books.id.lease-seconds and released
+ * on shutdown
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+@Lazy(false)
+@Component
+public class NodeIdLease implements InitializingBean, DisposableBean {
+
+    private static final String DELETE_EXPIRED = "delete from node_lease where node_id = ? and expires_at < ?";
+    private static final String INSERT_LEASE = "insert into node_lease (node_id, owner, expires_at) values (?, ?, ?)";
+    private static final String RENEW_LEASE = "update node_lease set expires_at = ? where node_id = ? and owner = ?";
+    private static final String DELETE_LEASE = "delete from node_lease where node_id = ? and owner = ?";
+    private static final String SELECT_OWNER = "select owner from node_lease where node_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int nodeId;
+    private final long leaseMillis;
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "books-node-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public NodeIdLease(JdbcTemplate jdbcTemplate,
+                       ObjectProvider<FlywayMigrationInitializer> flywayMigrationInitializer,
+                       @Value("${books.id.node-id:0}") int nodeId,
+                       @Value("${books.id.lease-seconds:30}") long leaseSeconds) {
+        // the node_lease table is created by the migrations
+        flywayMigrationInitializer.getIfAvailable();
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeId = nodeId;
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(Math.max(1, leaseSeconds));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!claim()) {
+            throw new IllegalStateException("The node id " + this.nodeId + " is leased by "
+                    + this.jdbcTemplate.queryForObject(SELECT_OWNER, String.class, this.nodeId)
+                    + ", set a free books.id.node-id");
+        }
+        log.info("Leased node id {} as {}", this.nodeId, this.owner);
+        long renewMillis = this.leaseMillis / 3;
+        this.scheduler.scheduleWithFixedDelay(this::renew, renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        this.scheduler.shutdownNow();
+        try {
+            this.jdbcTemplate.update(DELETE_LEASE, this.nodeId, this.owner);
+        } catch (Exception ex) {
+            log.error(ex.getLocalizedMessage());
+        }
+    }
+
+    private boolean claim() {
+        long now = System.currentTimeMillis();
+        this.jdbcTemplate.update(DELETE_EXPIRED, this.nodeId, new Timestamp(now));
+        try {
+            this.jdbcTemplate.update(INSERT_LEASE, this.nodeId, this.owner, new Timestamp(now + this.leaseMillis));
+            return true;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+
+    private void renew() {
+        try {
+            Timestamp expiresAt = new Timestamp(System.currentTimeMillis() + this.leaseMillis);
+            if (0 == this.jdbcTemplate.update(RENEW_LEASE, expiresAt, this.nodeId, this.owner) && !claim()) {
+                log.error("The lease of the node id {} was taken over by another node, its ids may collide", this.nodeId);
+            }
+        } catch (Exception ex) {
+            log.error(ex.getLocalizedMessage());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.bookservice.sharding;
+
+/**
+ * Holder of the shard used by the current thread, read by the
+ * {@link ShardRoutingDataSource} when a connection is taken. Threads that did
+ * not pick a shard use shard 0, which also holds the tables that are not sharded
+ *
+ * @author NIHARIKA GADDE
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private ShardContext() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @return shard of the current thread
+     */
+    public static int current() {
+        Integer shard = SHARD.get();
+        return null == shard ? 0 : shard;
+    }
+
+    static Integer get() {
+        return SHARD.get();
+    }
+
+    static void set(Integer shard) {
+        if (null == shard) {
+            SHARD.remove();
+        } else {
+            SHARD.set(shard);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.bookservice.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data source sending the connections to the shard picked by the
+ * {@link ShardContext} of the thread. Must be wrapped in a
+ * LazyConnectionDataSourceProxy, so that a transaction opened before the
+ * shard is picked still runs on that shard. The pools of the shards after the
+ * first one are owned by this data source
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = new ArrayList<>(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+    }
+
+    /**
+     * @return number of shards
+     */
+    public int size() {
+        return this.shards.size();
+    }
+
+    /**
+     * @param shard index of the shard
+     * @return data source of the shard
+     */
+    public DataSource getShard(int shard) {
+        return this.shards.get(shard);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    @Override
+    public void destroy() {
+        for (DataSource shard : this.shards.subList(1, this.shards.size())) {
+            if (shard instanceof Closeable) {
+                try {
+                    ((Closeable) shard).close();
+                } catch (IOException ex) {
+                    log.error(ex.getLocalizedMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.bookservice.sharding;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Allocator of 64-bit ids ordered by time: 41 bits of milliseconds since
+ * 2020-01-01, 10 bits of node id and 12 bits of sequence within the
+ * millisecond. Ids of different nodes never collide, and the ids of a node
+ * only grow, even when its clock steps back. There is one allocator per node
+ * id in the JVM, shared by the services and the Hibernate {@link BookIdGenerator}
+ *
+ * @author NIHARIKA GADDE
+ */
+public final class SnowflakeIds {
+
+    static final long EPOCH_MILLIS = 1577836800000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final ConcurrentMap<Integer, SnowflakeIds> NODES = new ConcurrentHashMap<>();
+
+    private final long node;
+    private final LongSupplier clock;
+    private long lastMillis = -1L;
+    private long sequence;
+
+    private SnowflakeIds(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIds(int nodeId, LongSupplier clock) {
+        this.node = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    /**
+     * @param nodeId id of this node, between 0 and 1023
+     * @return the allocator of the node
+     * @throws IllegalArgumentException if the node id is out of range
+     */
+    public static SnowflakeIds forNode(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("The node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        return NODES.computeIfAbsent(nodeId, SnowflakeIds::new);
+    }
+
+    /**
+     * @param id id returned by {@link #nextId()}
+     * @return time of the id, in milliseconds since the Unix epoch
+     */
+    public static long millisOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    /**
+     * @return a new id, greater than every id returned before by this allocator
+     */
+    public synchronized long nextId() {
+        long millis = Math.max(this.clock.getAsLong(), this.lastMillis);
+        if (millis == this.lastMillis) {
+            this.sequence = (this.sequence + 1) & SEQUENCE_MASK;
+            if (0 == this.sequence) {
+                // sequence exhausted within this millisecond, borrow the next one
+                millis++;
+            }
+        } else {
+            this.sequence = 0;
+        }
+        this.lastMillis = millis;
+        return ((millis - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS)) | this.node | this.sequence;
+    }
+}
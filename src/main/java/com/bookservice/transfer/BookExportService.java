@@ -0,0 +1,63 @@
+package com.bookservice.transfer;
+
+import com.bookservice.service.BooksService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Class containing the bulk export of the catalogue. The books are read from a
+ * database cursor in id order and written to the output as they come, so the
+ * memory used does not grow with the size of the catalogue
+ *
+ * @author NIHARIKA GADDE
+ */
+@Service
+public class BookExportService {
+
+    private static final String EXPORT_ROWS_METRIC = "books.export.rows";
+
+    @Autowired
+    private BooksService booksService;
+
+    @Autowired
+    private BookTransferCodec bookTransferCodec;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter exportedRows;
+
+    @PostConstruct
+    void init() {
+        this.exportedRows = this.meterRegistry.counter(EXPORT_ROWS_METRIC);
+    }
+
+    /**
+     * Writes every book of the catalogue to the output
+     *
+     * @param format format of the output
+     * @param out    output, left open
+     * @throws IOException if the output cannot be written
+     */
+    public void export(BookTransferFormat format, OutputStream out) throws IOException {
+        try (BookTransferCodec.BookWriter writer = this.bookTransferCodec.write(format, out)) {
+            this.booksService.streamAll(book -> {
+                try {
+                    writer.write(book);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                this.exportedRows.increment();
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+}
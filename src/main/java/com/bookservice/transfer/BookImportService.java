@@ -0,0 +1,344 @@
+package com.bookservice.transfer;
+
+import com.bookservice.config.ExecutorConfig;
+import com.bookservice.dto.BatchItemResultDTO;
+import com.bookservice.dto.BatchResultDTO;
+import com.bookservice.dto.BookDTO;
+import com.bookservice.dto.ImportJobDTO;
+import com.bookservice.dto.ImportRowErrorDTO;
+import com.bookservice.exception.InvalidBookDataException;
+import com.bookservice.service.BooksBatchService;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class containing the bulk import of books from CSV or NDJSON files. The upload
+ * is spooled to disk and the request returns right away with a job to poll. A
+ * job runs as a pipeline: one thread parses the file row by row and hands chunks
+ * of rows over a bounded queue to the import workers, which validate the books
+ * (Bean Validation and the book data rules) and write them in one transaction
+ * per chunk through {@link BooksBatchService}. A full queue blocks the parser,
+ * so at most queue capacity + parallelism chunks are held in memory whatever
+ * the size of the file.
+ * <p>
+ * Rows that cannot be read, are invalid or fail are reported with their row
+ * number. When the job fails (the database is down, the service stops) it can
+ * be resumed: completed chunks are skipped and the others are imported again
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+@Service
+public class BookImportService {
+
+    private static final String IMPORT_ROWS_METRIC = "books.import.rows";
+    private static final String IMPORT_JOBS_METRIC = "books.import.jobs";
+
+    private static final Chunk END_OF_FILE = new Chunk(-1);
+
+    @Autowired
+    private BooksBatchService booksBatchService;
+
+    @Autowired
+    private BookTransferCodec bookTransferCodec;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier(ExecutorConfig.IMPORT_JOB_EXECUTOR)
+    private Executor importJobExecutor;
+
+    @Autowired
+    @Qualifier(ExecutorConfig.IMPORT_WORKER_EXECUTOR)
+    private Executor importWorkerExecutor;
+
+    @Value("${books.import.spool-dir:${java.io.tmpdir}}")
+    private String spoolDir;
+
+    @Value("${books.import.parallelism:4}")
+    private int parallelism;
+
+    @Value("${books.batch.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${books.import.max-errors:1000}")
+    private int maxErrors;
+
+    @Value("${books.import.job-retention-minutes:1440}")
+    private long jobRetentionMinutes;
+
+    private Cache<String, ImportJob> jobs;
+    private Counter importedRows;
+    private Counter rejectedRows;
+
+    @PostConstruct
+    void init() {
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(this.jobRetentionMinutes, TimeUnit.MINUTES)
+                .removalListener((String jobId, ImportJob job, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        deleteSpoolFile(job);
+                    }
+                })
+                .build();
+        this.importedRows = this.meterRegistry.counter(IMPORT_ROWS_METRIC, "outcome", "imported");
+        this.rejectedRows = this.meterRegistry.counter(IMPORT_ROWS_METRIC, "outcome", "rejected");
+    }
+
+    /**
+     * Spools the uploaded file and queues its import
+     *
+     * @param format format of the file
+     * @param in     content of the file
+     * @return Status of the new job {@link ImportJobDTO}
+     * @throws IOException if the upload cannot be spooled
+     */
+    public ImportJobDTO submit(BookTransferFormat format, InputStream in) throws IOException {
+        Path spoolFile = Files.createTempFile(Paths.get(this.spoolDir), "books-import-", "." + format.getExtension());
+        try {
+            Files.copy(in, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+            ImportJob job = new ImportJob(UUID.randomUUID().toString(), format, spoolFile, this.chunkSize, this.maxErrors);
+            this.jobs.put(job.getId(), job);
+            schedule(job);
+            return job.toDTO();
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(spoolFile);
+            throw ex;
+        }
+    }
+
+    /**
+     * Queues a failed job again, it continues after its completed chunks
+     *
+     * @param jobId id of the job
+     * @return Status of the job {@link ImportJobDTO}, empty if the job is unknown
+     */
+    public Optional<ImportJobDTO> resume(String jobId) {
+        ImportJob job = this.jobs.getIfPresent(jobId);
+        if (null == job) {
+            return Optional.empty();
+        }
+        if (!job.compareAndSetStatus(ImportJobDTO.Status.FAILED, ImportJobDTO.Status.QUEUED)) {
+            throw new InvalidBookDataException("Import job " + jobId + " is " + job.getStatus() + " and cannot be resumed");
+        }
+        schedule(job);
+        return Optional.of(job.toDTO());
+    }
+
+    /**
+     * Status of a job
+     *
+     * @param jobId id of the job
+     * @return Status of the job {@link ImportJobDTO}, empty if the job is unknown
+     */
+    public Optional<ImportJobDTO> getJob(String jobId) {
+        return Optional.ofNullable(this.jobs.getIfPresent(jobId)).map(ImportJob::toDTO);
+    }
+
+    private void schedule(ImportJob job) {
+        try {
+            this.importJobExecutor.execute(() -> run(job));
+        } catch (RuntimeException ex) {
+            job.compareAndSetStatus(ImportJobDTO.Status.QUEUED, ImportJobDTO.Status.FAILED);
+            throw ex;
+        }
+    }
+
+    private void run(ImportJob job) {
+        job.start();
+        long start = System.nanoTime();
+        BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(this.parallelism * 2);
+        List<CompletableFuture<Void>> workers = new ArrayList<>(this.parallelism);
+        try {
+            for (int i = 0; i < this.parallelism; i++) {
+                workers.add(CompletableFuture.runAsync(() -> work(job, chunks), this.importWorkerExecutor));
+            }
+            parse(job, chunks);
+        } catch (IOException | RuntimeException ex) {
+            log.error(ex.getLocalizedMessage());
+            job.fail(ex.getLocalizedMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            job.fail("The import was interrupted");
+        }
+        try {
+            for (int i = 0; i < workers.size(); i++) {
+                chunks.put(END_OF_FILE);
+            }
+            CompletableFuture.allOf(workers.toArray(new CompletableFuture[0])).join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            job.fail("The import was interrupted");
+        } catch (RuntimeException ex) {
+            log.error(ex.getLocalizedMessage());
+            job.fail(ex.getLocalizedMessage());
+        }
+        job.finish();
+        this.jobs.put(job.getId(), job);
+        if (ImportJobDTO.Status.COMPLETED == job.getStatus()) {
+            deleteSpoolFile(job);
+        }
+        Timer.builder(IMPORT_JOBS_METRIC)
+                .tag("status", job.getStatus().name())
+                .register(this.meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void parse(ImportJob job, BlockingQueue<Chunk> chunks) throws IOException, InterruptedException {
+        try (InputStream in = Files.newInputStream(job.getSpoolFile());
+             MappingIterator<BookDTO> books = this.bookTransferCodec.read(job.getFormat(), in)) {
+            Chunk chunk = null;
+            long row = 0;
+            long lastFailedOffset = -1;
+            while (!job.isFailing()) {
+                BookDTO book = null;
+                String error = null;
+                try {
+                    if (!books.hasNextValue()) {
+                        break;
+                    }
+                    book = books.nextValue();
+                } catch (IOException | RuntimeException ex) {
+                    long offset = offsetOf(books.getCurrentLocation());
+                    if (offset == lastFailedOffset) {
+                        throw new IOException("The file cannot be read after row " + row, ex);
+                    }
+                    lastFailedOffset = offset;
+                    error = ex.getLocalizedMessage();
+                }
+                row++;
+                job.rowRead(row);
+                long chunkNumber = job.chunkOf(row);
+                if (job.isChunkCompleted(chunkNumber)) {
+                    continue;
+                }
+                if (null == chunk || chunk.number != chunkNumber) {
+                    hand(job, chunks, chunk);
+                    chunk = new Chunk(chunkNumber);
+                }
+                if (null == error) {
+                    chunk.add(row, book);
+                } else {
+                    chunk.reject(row, error);
+                }
+            }
+            hand(job, chunks, chunk);
+        }
+    }
+
+    private static void hand(ImportJob job, BlockingQueue<Chunk> chunks, Chunk chunk) throws InterruptedException {
+        if (null == chunk) {
+            return;
+        }
+        while (!job.isFailing() && !chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            // the workers are behind, wait for room in the queue
+        }
+    }
+
+    private void work(ImportJob job, BlockingQueue<Chunk> chunks) {
+        try {
+            Chunk chunk;
+            while (END_OF_FILE != (chunk = chunks.take())) {
+                if (!job.isFailing()) {
+                    importChunk(job, chunk);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            job.fail("The import was interrupted");
+        }
+    }
+
+    private void importChunk(ImportJob job, Chunk chunk) {
+        try {
+            BatchResultDTO result = this.booksBatchService.saveAll(chunk.books.iterator());
+            Optional<BatchItemResultDTO> writeFailure = result.getItems().stream()
+                    .filter(item -> BatchItemResultDTO.Status.FAILED == item.getStatus())
+                    .findFirst();
+            if (0 == result.getSucceeded() && writeFailure.isPresent()) {
+                // nothing of the chunk could be written, the database is likely unavailable
+                job.fail(writeFailure.get().getMessage());
+                return;
+            }
+            for (BatchItemResultDTO item : result.getItems()) {
+                if (BatchItemResultDTO.Status.CREATED != item.getStatus()) {
+                    chunk.reject(chunk.rows.get(item.getIndex()), item.getMessage());
+                }
+            }
+            job.completeChunk(chunk.number, result.getSucceeded(), chunk.errors);
+            this.importedRows.increment(result.getSucceeded());
+            this.rejectedRows.increment(chunk.errors.size());
+        } catch (RuntimeException ex) {
+            log.error(ex.getLocalizedMessage());
+            job.fail(ex.getLocalizedMessage());
+        }
+    }
+
+    private static long offsetOf(JsonLocation location) {
+        return Math.max(location.getByteOffset(), location.getCharOffset());
+    }
+
+    private static void deleteSpoolFile(ImportJob job) {
+        if (null == job) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(job.getSpoolFile());
+        } catch (IOException ex) {
+            log.error(ex.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Consecutive rows of the file, the rows that could not be read only carry
+     * their error
+     */
+    private static class Chunk {
+        private final long number;
+        private final List<Long> rows = new ArrayList<>();
+        private final List<BookDTO> books = new ArrayList<>();
+        private final List<ImportRowErrorDTO> errors = new ArrayList<>();
+
+        Chunk(long number) {
+            this.number = number;
+        }
+
+        void add(long row, BookDTO book) {
+            this.rows.add(row);
+            this.books.add(book);
+        }
+
+        void reject(long row, String message) {
+            this.errors.add(new ImportRowErrorDTO(row, message));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.bookservice.transfer;
+
+import com.bookservice.dto.BookDTO;
+import com.bookservice.util.NdjsonWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Readers and writers of the books in the transfer formats. NDJSON goes through
+ * the application ObjectMapper; CSV has a header row with the columns id, name,
+ * author, genre, description, price and publishedYear, in any order. Both read
+ * and write one row at a time
+ *
+ * @author NIHARIKA GADDE
+ */
+@Component
+public class BookTransferCodec {
+
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+            .addNumberColumn("id")
+            .addColumn("name")
+            .addColumn("author")
+            .addColumn("genre")
+            .addColumn("description")
+            .addNumberColumn("price")
+            .addNumberColumn("publishedYear")
+            .setUseHeader(true)
+            .build();
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final CsvMapper csvMapper = new CsvMapper();
+
+    public BookTransferCodec() {
+        this.csvMapper.findAndRegisterModules();
+        this.csvMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.csvMapper.enable(CsvParser.Feature.TRIM_SPACES, CsvParser.Feature.SKIP_EMPTY_LINES);
+        this.csvMapper.enable(JsonGenerator.Feature.IGNORE_UNKNOWN);
+    }
+
+    /**
+     * Opens an iterator over the books of the input, rows are parsed as they are
+     * iterated
+     *
+     * @param format format of the input
+     * @param in     input, left open
+     * @return iterator over the books {@link BookDTO}
+     * @throws IOException if the input cannot be read
+     */
+    public MappingIterator<BookDTO> read(BookTransferFormat format, InputStream in) throws IOException {
+        if (BookTransferFormat.CSV == format) {
+            return this.csvMapper.readerFor(BookDTO.class)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(in);
+        }
+        return this.objectMapper.readerFor(BookDTO.class).readValues(in);
+    }
+
+    /**
+     * Opens a writer of books to the output, which is flushed in blocks
+     *
+     * @param format format of the output
+     * @param out    output, left open
+     * @return writer of the books
+     * @throws IOException if the output cannot be written
+     */
+    public BookWriter write(BookTransferFormat format, OutputStream out) throws IOException {
+        if (BookTransferFormat.CSV == format) {
+            SequenceWriter writer = this.csvMapper.writerFor(BookDTO.class)
+                    .with(CSV_SCHEMA)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .writeValues(out);
+            return new BookWriter() {
+                @Override
+                public void write(BookDTO book) throws IOException {
+                    writer.write(book);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    writer.close();
+                }
+            };
+        }
+        NdjsonWriter writer = new NdjsonWriter(this.objectMapper, out);
+        return new BookWriter() {
+            @Override
+            public void write(BookDTO book) throws IOException {
+                writer.write(book);
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+
+    /**
+     * Writer of books in one of the transfer formats
+     */
+    public interface BookWriter extends Closeable {
+
+        void write(BookDTO book) throws IOException;
+    }
+}
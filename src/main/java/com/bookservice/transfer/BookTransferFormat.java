@@ -0,0 +1,63 @@
+package com.bookservice.transfer;
+
+import com.bookservice.constants.StringConstants;
+import org.springframework.http.MediaType;
+
+/**
+ * File formats of the bulk import and export of the catalogue
+ *
+ * @author NIHARIKA GADDE
+ */
+public enum BookTransferFormat {
+
+    CSV(StringConstants.TEXT_CSV_VALUE, "csv"),
+    NDJSON(StringConstants.APPLICATION_NDJSON_VALUE, "ndjson");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    BookTransferFormat(String mediaType, String extension) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return this.mediaType;
+    }
+
+    public String getExtension() {
+        return this.extension;
+    }
+
+    /**
+     * Finds the format of a Content-Type, its parameters (charset) are ignored
+     *
+     * @param contentType media type
+     * @return format of the media type
+     * @throws IllegalArgumentException if no format has this media type
+     */
+    public static BookTransferFormat fromMediaType(MediaType contentType) {
+        for (BookTransferFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(contentType) && !contentType.isWildcardType()) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import format: " + contentType);
+    }
+
+    /**
+     * Finds the format from its extension, csv or ndjson
+     *
+     * @param extension extension, case insensitive
+     * @return format of the extension
+     * @throws IllegalArgumentException if no format has this extension
+     */
+    public static BookTransferFormat fromExtension(String extension) {
+        for (BookTransferFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(extension)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + extension);
+    }
+}
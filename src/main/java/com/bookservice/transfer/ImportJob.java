@@ -0,0 +1,152 @@
+package com.bookservice.transfer;
+
+import com.bookservice.dto.ImportJobDTO;
+import com.bookservice.dto.ImportRowErrorDTO;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * State of an import job. The uploaded file is cut into chunks of consecutive
+ * rows that are numbered from the start of the file, so the same chunk has the
+ * same number in every attempt. Completed chunks are recorded and skipped by a
+ * resumed attempt, and the leading run of completed chunks gives the number of
+ * committed rows
+ *
+ * @author NIHARIKA GADDE
+ */
+class ImportJob {
+
+    private final String id;
+    private final BookTransferFormat format;
+    private final Path spoolFile;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final Instant createdAt = Instant.now();
+
+    private final AtomicReference<ImportJobDTO.Status> status = new AtomicReference<>(ImportJobDTO.Status.QUEUED);
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsImported = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final Set<Long> completedChunks = new ConcurrentSkipListSet<>();
+    private final Queue<ImportRowErrorDTO> errors = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger errorCount = new AtomicInteger();
+    private long nextUncommittedChunk;
+    private volatile String message;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    ImportJob(String id, BookTransferFormat format, Path spoolFile, int chunkSize, int maxErrors) {
+        this.id = id;
+        this.format = format;
+        this.spoolFile = spoolFile;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    String getId() {
+        return this.id;
+    }
+
+    BookTransferFormat getFormat() {
+        return this.format;
+    }
+
+    Path getSpoolFile() {
+        return this.spoolFile;
+    }
+
+    ImportJobDTO.Status getStatus() {
+        return this.status.get();
+    }
+
+    long chunkOf(long row) {
+        return (row - 1) / this.chunkSize;
+    }
+
+    boolean compareAndSetStatus(ImportJobDTO.Status expected, ImportJobDTO.Status newStatus) {
+        return this.status.compareAndSet(expected, newStatus);
+    }
+
+    void start() {
+        this.attempts.incrementAndGet();
+        this.message = null;
+        this.startedAt = Instant.now();
+        this.finishedAt = null;
+        this.status.set(ImportJobDTO.Status.RUNNING);
+    }
+
+    void finish() {
+        this.finishedAt = Instant.now();
+        this.status.set(isFailing() ? ImportJobDTO.Status.FAILED : ImportJobDTO.Status.COMPLETED);
+    }
+
+    boolean isFailing() {
+        return null != this.message;
+    }
+
+    synchronized void fail(String failure) {
+        if (null == this.message) {
+            this.message = failure;
+        }
+    }
+
+    void rowRead(long row) {
+        this.rowsRead.accumulateAndGet(row, Math::max);
+    }
+
+    boolean isChunkCompleted(long chunk) {
+        return chunk < committedChunks() || this.completedChunks.contains(chunk);
+    }
+
+    void completeChunk(long chunk, long imported, List<ImportRowErrorDTO> rejected) {
+        this.rowsImported.addAndGet(imported);
+        this.rowsRejected.addAndGet(rejected.size());
+        for (ImportRowErrorDTO error : rejected) {
+            if (this.errorCount.incrementAndGet() > this.maxErrors) {
+                break;
+            }
+            this.errors.add(error);
+        }
+        synchronized (this) {
+            this.completedChunks.add(chunk);
+            while (this.completedChunks.remove(this.nextUncommittedChunk)) {
+                this.nextUncommittedChunk++;
+            }
+        }
+    }
+
+    private synchronized long committedChunks() {
+        return this.nextUncommittedChunk;
+    }
+
+    ImportJobDTO toDTO() {
+        List<ImportRowErrorDTO> firstErrors = new ArrayList<>(this.errors);
+        firstErrors.sort((left, right) -> Long.compare(left.getRow(), right.getRow()));
+        return ImportJobDTO.builder()
+                .id(this.id)
+                .format(this.format)
+                .status(this.status.get())
+                .rowsRead(this.rowsRead.get())
+                .rowsImported(this.rowsImported.get())
+                .rowsRejected(this.rowsRejected.get())
+                .committedRows(Math.min(committedChunks() * this.chunkSize, this.rowsRead.get()))
+                .attempts(this.attempts.get())
+                .errors(firstErrors)
+                .message(this.message)
+                .createdAt(this.createdAt)
+                .startedAt(this.startedAt)
+                .finishedAt(this.finishedAt)
+                .build();
+    }
+}
@@ -1,9 +1,12 @@
 package com.bookservice.util;
 
 import com.bookservice.dto.ErrorDto;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.net.URI;
+
 /**
  * Utility class for Controllers. It can be used for returning
  * different types of Response Entities
@@ -48,6 +51,17 @@ public class ControllersUtil {
         return new ResponseEntity<>(returnObject, HttpStatus.OK);
     }
 
+    /**
+     * Helper method for returning the {@link ResponseEntity} of type <T>
+     * with {@link HttpStatus} OK (200) and the given headers
+     *
+     * @param <T> Type of the value
+     * @return {@link ResponseEntity}
+     */
+    public static <T> ResponseEntity<T> getOkResponseEntity(T returnObject, HttpHeaders headers) {
+        return new ResponseEntity<>(returnObject, headers, HttpStatus.OK);
+    }
+
     /**
      * Helper method for returning the {@link ResponseEntity} of type <T>
      * with {@link HttpStatus} CREATED (201)
@@ -59,6 +73,18 @@ public class ControllersUtil {
         return new ResponseEntity<>(returnObject, HttpStatus.CREATED);
     }
 
+    /**
+     * Helper method for returning the {@link ResponseEntity} of type <T>
+     * with {@link HttpStatus} ACCEPTED (202) and the location of the accepted work
+     *
+     * @param <T>      Type of the value
+     * @param location location to poll for the outcome
+     * @return {@link ResponseEntity}
+     */
+    public static <T> ResponseEntity<T> getAcceptedResponseEntity(T returnObject, URI location) {
+        return ResponseEntity.accepted().location(location).body(returnObject);
+    }
+
     /**
      * Helper method for returning the {@link ResponseEntity} of type <T>
      * with {@link HttpStatus} NOT_FOUND (404)
@@ -78,4 +104,66 @@ public class ControllersUtil {
     public static <T> ResponseEntity<T> getNoContentResponseEntity() {
         return new ResponseEntity<>(null, HttpStatus.NO_CONTENT);
     }
+
+    /**
+     * Helper method for returning the {@link ResponseEntity} of type <T>
+     * with {@link HttpStatus} NOT_MODIFIED (304) and the given ETag. The
+     * validated representation is negotiated, so the response varies on Accept
+     *
+     * @param eTag quoted ETag
+     * @return {@link ResponseEntity}
+     */
+    public static <T> ResponseEntity<T> getNotModifiedResponseEntity(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+    }
+
+    /**
+     * Helper method for returning the {@link ResponseEntity} of type {@link ErrorDto}
+     * with {@link HttpStatus} BAD_REQUEST (400)
+     *
+     * @param ex Exception
+     * @return {@link ResponseEntity}
+     */
+    public static ResponseEntity<ErrorDto> getBadRequestResponseEntity(Exception ex) {
+        return new ResponseEntity<>(Utils.getErrorDtoFromException(ex), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Helper method for returning the {@link ResponseEntity} of type {@link ErrorDto}
+     * with {@link HttpStatus} PRECONDITION_FAILED (412)
+     *
+     * @param ex Exception
+     * @return {@link ResponseEntity}
+     */
+    public static ResponseEntity<ErrorDto> getPreconditionFailedResponseEntity(Exception ex) {
+        return new ResponseEntity<>(Utils.getErrorDtoFromException(ex), HttpStatus.PRECONDITION_FAILED);
+    }
+
+    /**
+     * Helper method for returning the {@link ResponseEntity} of type {@link ErrorDto}
+     * with {@link HttpStatus} TOO_MANY_REQUESTS (429) and a Retry-After header
+     *
+     * @param ex                Exception
+     * @param retryAfterSeconds delay after which the client may retry
+     * @return {@link ResponseEntity}
+     */
+    public static ResponseEntity<ErrorDto> getTooManyRequestsResponseEntity(Exception ex, long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(Utils.getErrorDtoFromException(ex));
+    }
+
+    /**
+     * Helper method for returning the {@link ResponseEntity} of type {@link ErrorDto}
+     * with {@link HttpStatus} SERVICE_UNAVAILABLE (503) and a Retry-After header
+     *
+     * @param ex                Exception
+     * @param retryAfterSeconds delay after which the client may retry
+     * @return {@link ResponseEntity}
+     */
+    public static ResponseEntity<ErrorDto> getServiceUnavailableResponseEntity(Exception ex, long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(Utils.getErrorDtoFromException(ex));
+    }
 }
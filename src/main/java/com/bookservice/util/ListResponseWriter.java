@@ -0,0 +1,111 @@
+package com.bookservice.util;
+
+import com.bookservice.metrics.TimedBinaryHttpMessageConverter;
+import com.bookservice.metrics.TimedHttpMessageConverter;
+import com.bookservice.metrics.TimedJsonHttpMessageConverter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writer of the list responses. Instead of handing the whole list to a message
+ * converter, the elements are serialized one by one into the response stream,
+ * which is flushed every few elements so that the first bytes go out (chunked,
+ * and compressed when negotiated) before the end of the list is encoded. The
+ * format is picked from the Accept header among the Jackson converters, so the
+ * responses carry Vary: Accept
+ *
+ * @author NIHARIKA GADDE
+ */
+@Component
+public class ListResponseWriter {
+
+    private static final int FLUSH_INTERVAL = 256;
+
+    @Autowired
+    private TimedJsonHttpMessageConverter jsonConverter;
+
+    @Autowired(required = false)
+    private List<TimedBinaryHttpMessageConverter> binaryConverters = Collections.emptyList();
+
+    private final List<AbstractJackson2HttpMessageConverter> converters = new ArrayList<>();
+
+    @PostConstruct
+    void init() {
+        this.converters.add(this.jsonConverter);
+        this.converters.addAll(this.binaryConverters);
+    }
+
+    /**
+     * Builds a streamed response of the given list with {@link HttpStatus} OK (200)
+     *
+     * @param values  elements of the list
+     * @param accept  Accept header of the request, JSON is used when it is absent
+     * @param headers headers of the response
+     * @return {@link ResponseEntity} of a {@link StreamingResponseBody}
+     */
+    public ResponseEntity<StreamingResponseBody> ok(List<?> values, String accept, HttpHeaders headers) {
+        AbstractJackson2HttpMessageConverter converter = select(accept);
+        ObjectMapper objectMapper = converter.getObjectMapper();
+        ObjectWriter objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        Timer timer = ((TimedHttpMessageConverter) converter).getSerializationTimer();
+        StreamingResponseBody body = out -> {
+            long start = System.nanoTime();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartArray();
+                int pending = 0;
+                for (Object value : values) {
+                    objectWriter.writeValue(generator, value);
+                    if (++pending >= FLUSH_INTERVAL) {
+                        generator.flush();
+                        pending = 0;
+                    }
+                }
+                generator.writeEndArray();
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+        return ResponseEntity.ok()
+                .headers(headers)
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(converter.getSupportedMediaTypes().get(0))
+                .body(body);
+    }
+
+    private AbstractJackson2HttpMessageConverter select(String accept) {
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = null == accept ? Collections.emptyList() : MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException ex) {
+            mediaTypes = Collections.emptyList();
+        }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            for (AbstractJackson2HttpMessageConverter converter : this.converters) {
+                if (converter.canWrite(List.class, mediaType)) {
+                    return converter;
+                }
+            }
+        }
+        return this.jsonConverter;
+    }
+}
@@ -0,0 +1,53 @@
+package com.bookservice.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writer for newline delimited JSON (NDJSON) responses. Values are written one
+ * per line through a single {@link JsonGenerator} and the output is flushed in
+ * blocks, so the whole response is never buffered in memory
+ *
+ * @author NIHARIKA GADDE
+ */
+public class NdjsonWriter implements Closeable {
+
+    private static final int FLUSH_INTERVAL = 256;
+
+    private final ObjectWriter objectWriter;
+    private final JsonGenerator generator;
+    private int pending;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.setRootValueSeparator(null);
+    }
+
+    /**
+     * Writes a value followed by a new line
+     *
+     * @param value value to be serialized
+     * @throws IOException if the value cannot be written
+     */
+    public void write(Object value) throws IOException {
+        this.objectWriter.writeValue(this.generator, value);
+        this.generator.writeRaw('\n');
+        if (++this.pending >= FLUSH_INTERVAL) {
+            this.generator.flush();
+            this.pending = 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.generator.close();
+    }
+}
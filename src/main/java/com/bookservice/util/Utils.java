@@ -2,6 +2,7 @@ package com.bookservice.util;
 
 import com.bookservice.dto.ErrorDto;
 import com.bookservice.dto.BookDTO;
+import com.bookservice.dto.BookPatchDTO;
 import com.bookservice.model.Book;
 import org.apache.commons.lang3.StringUtils;
 
@@ -33,41 +34,139 @@ public class Utils {
      * Helper method for validating the Book data
      *
      * @param book {@link Book}
-     * @return {@link ErrorDto}
+     * @return true if the book data is valid
      */
-    static boolean isBookDataValid(Book book) {
+    public static boolean isBookDataValid(Book book) {
         boolean isValid = false;
-        if (StringUtils.isNoneBlank(book.getName(), book.getAuthor(), book.getPublishedYear())
+        if (StringUtils.isNoneBlank(book.getName(), book.getAuthor()) && book.getPublishedYear() != null
                 && book.getPrice() != null && book.getPrice() > 0) {
             isValid = true;
         }
         return isValid;
     }
 
+    /**
+     * Helper method for mapping a {@link Book} entity to a {@link BookDTO}
+     *
+     * @param book {@link Book}
+     * @return {@link BookDTO}
+     */
     public static BookDTO mapBookEntityToDTO(Book book) {
         if (null == book) {
             return null;
         }
-        return BookDTO.builder()
-                .id(book.getId())
-                .name(book.getName())
-                .author(book.getAuthor())
-                .description(book.getDescription())
-                .genre(book.getGenre())
-                .price(book.getPrice())
-                .publishedYear(book.getPublishedYear())
-                .build();
+        return new BookDTO(book.getId(), book.getName(), book.getAuthor(), book.getGenre(),
+                book.getDescription(), book.getPrice(), book.getPublishedYear(),
+                book.getVersion(), book.getLastModified());
     }
 
+    /**
+     * Helper method for mapping a {@link BookDTO} to a new {@link Book} entity.
+     * The version and modification time are owned by the database and never copied
+     *
+     * @param bookDTO {@link BookDTO}
+     * @return {@link Book}
+     */
     public static Book convertToBookEntity(BookDTO bookDTO) {
-        return Book.builder()
-                .id(bookDTO.getId())
-                .name(bookDTO.getName())
-                .author(bookDTO.getAuthor())
-                .description(bookDTO.getDescription())
-                .genre(bookDTO.getGenre())
-                .price(bookDTO.getPrice())
-                .publishedYear(bookDTO.getPublishedYear())
-                .build();
+        return new Book(bookDTO.getId(), bookDTO.getName(), bookDTO.getAuthor(), bookDTO.getGenre(),
+                bookDTO.getDescription(), bookDTO.getPrice(), bookDTO.getPublishedYear(), null, null);
+    }
+
+    /**
+     * Helper method for copying the book data of a {@link BookDTO} onto an
+     * existing {@link Book} entity, leaving its id untouched
+     *
+     * @param bookDTO {@link BookDTO}
+     * @param book    {@link Book}
+     */
+    public static void copyBookData(BookDTO bookDTO, Book book) {
+        book.setName(bookDTO.getName());
+        book.setAuthor(bookDTO.getAuthor());
+        book.setDescription(bookDTO.getDescription());
+        book.setGenre(bookDTO.getGenre());
+        book.setPrice(bookDTO.getPrice());
+        book.setPublishedYear(bookDTO.getPublishedYear());
+    }
+
+    /**
+     * Helper method for copying the fields set in a {@link BookPatchDTO} onto
+     * an existing {@link Book} entity, the other fields are left untouched
+     *
+     * @param patch {@link BookPatchDTO}
+     * @param book  {@link Book}
+     */
+    public static void applyBookPatch(BookPatchDTO patch, Book book) {
+        if (null != patch.getName()) {
+            book.setName(patch.getName());
+        }
+        if (null != patch.getAuthor()) {
+            book.setAuthor(patch.getAuthor());
+        }
+        if (null != patch.getGenre()) {
+            book.setGenre(patch.getGenre());
+        }
+        if (null != patch.getDescription()) {
+            book.setDescription(patch.getDescription());
+        }
+        if (null != patch.getPrice()) {
+            book.setPrice(patch.getPrice());
+        }
+        if (null != patch.getPublishedYear()) {
+            book.setPublishedYear(patch.getPublishedYear());
+        }
+    }
+
+    /**
+     * Helper method for building the strong ETag of a book version
+     *
+     * @param bookId  book id
+     * @param version book version
+     * @return quoted ETag
+     */
+    public static String getBookETag(Long bookId, Long version) {
+        return "\"" + bookId + "-" + version + "\"";
+    }
+
+    /**
+     * Helper method for checking an If-None-Match header value against an ETag.
+     * Weak comparison is used and "*" matches any ETag
+     *
+     * @param header header value, possibly a comma separated list of ETags
+     * @param eTag   quoted ETag
+     * @return true if one of the ETags of the header matches
+     */
+    public static boolean matchesETag(String header, String eTag) {
+        if (StringUtils.isBlank(header) || null == eTag) {
+            return false;
+        }
+        String opaqueTag = StringUtils.removeStart(eTag, "W/");
+        for (String candidate : header.split(",")) {
+            String trimmed = candidate.trim();
+            if ("*".equals(trimmed) || opaqueTag.equals(StringUtils.removeStart(trimmed, "W/"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Helper method for checking an If-Match header value against an ETag.
+     * Strong comparison is used: weak ETags never match, and "*" matches any ETag
+     *
+     * @param header header value, possibly a comma separated list of ETags
+     * @param eTag   quoted ETag
+     * @return true if one of the ETags of the header matches
+     */
+    public static boolean matchesETagStrongly(String header, String eTag) {
+        if (StringUtils.isBlank(header) || null == eTag || eTag.startsWith("W/")) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String trimmed = candidate.trim();
+            if ("*".equals(trimmed) || eTag.equals(trimmed)) {
+                return true;
+            }
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
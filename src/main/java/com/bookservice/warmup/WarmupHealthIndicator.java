@@ -0,0 +1,34 @@
+package com.bookservice.warmup;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+/**
+ * Health of the warm-up, OUT_OF_SERVICE until the {@link WarmupRunner} is done
+ * so that /actuator/health answers 503 and the load balancer holds the traffic
+ * back while the service is cold
+ *
+ * @author NIHARIKA GADDE
+ */
+@Component
+public class WarmupHealthIndicator extends AbstractHealthIndicator {
+
+    @Autowired
+    private WarmupRunner warmupRunner;
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        WarmupRunner.WarmupStatus status = this.warmupRunner.getStatus();
+        if (WarmupRunner.WarmupStatus.DONE == status || WarmupRunner.WarmupStatus.SKIPPED == status) {
+            builder.up();
+        } else {
+            builder.outOfService();
+        }
+        builder.withDetail("status", status)
+                .withDetail("preloadedBooks", this.warmupRunner.getPreloadedBooks())
+                .withDetail("sentRequests", this.warmupRunner.getSentRequests())
+                .withDetail("durationMillis", this.warmupRunner.getDurationMillis());
+    }
+}
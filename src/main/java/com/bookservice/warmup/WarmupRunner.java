@@ -0,0 +1,216 @@
+package com.bookservice.warmup;
+
+import com.bookservice.cache.BookCache;
+import com.bookservice.constants.StringConstants;
+import com.bookservice.dto.BookDTO;
+import com.bookservice.service.BooksService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Warm-up run once the application has started and before it reports itself
+ * ready through the warmup health indicator. It preloads the hottest books
+ * into the {@link BookCache}, then sends requests to the main read endpoints
+ * through the embedded server so that the lazy beans, the Hibernate query plans,
+ * the Jackson serializers and the JIT compiled paths are in place when the
+ * first client arrives.
+ * <p>
+ * The ids of the hottest books are saved on shutdown to books.warmup.hot-ids-file
+ * and preloaded by the next start; without this file the first books are used
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+@Component
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final String WARMUP_CLIENT = "warmup";
+
+    @Autowired
+    private BooksService booksService;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @Value("${books.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${books.warmup.hot-books:1000}")
+    private int hotBooks;
+
+    @Value("${books.warmup.hot-ids-file:}")
+    private String hotIdsFile;
+
+    @Value("${books.warmup.iterations:50}")
+    private int iterations;
+
+    @Value("${books.warmup.max-duration-seconds:60}")
+    private long maxDurationSeconds;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    private volatile WarmupStatus status = WarmupStatus.PENDING;
+    private volatile int preloadedBooks;
+    private volatile int sentRequests;
+    private volatile long durationMillis;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!this.enabled) {
+            this.status = WarmupStatus.SKIPPED;
+            return;
+        }
+        this.status = WarmupStatus.RUNNING;
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(this.maxDurationSeconds);
+        try {
+            List<BookDTO> books = preload();
+            exercise(books, deadline);
+        } catch (Exception ex) {
+            log.error(ex.getLocalizedMessage());
+        }
+        this.durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        this.status = WarmupStatus.DONE;
+        log.info("Warm-up done in {} ms, {} books preloaded, {} requests sent",
+                this.durationMillis, this.preloadedBooks, this.sentRequests);
+    }
+
+    /**
+     * Saves the ids of the hottest books for the warm-up of the next start
+     */
+    @PreDestroy
+    void saveHotIds() {
+        if (!this.enabled || StringUtils.isBlank(this.hotIdsFile)) {
+            return;
+        }
+        List<String> lines = this.bookCache.hottestIds(this.hotBooks).stream()
+                .map(String::valueOf)
+                .collect(toList());
+        try {
+            Path path = Paths.get(this.hotIdsFile);
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Files.write(path, lines, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            log.error(ex.getLocalizedMessage());
+        }
+    }
+
+    WarmupStatus getStatus() {
+        return this.status;
+    }
+
+    int getPreloadedBooks() {
+        return this.preloadedBooks;
+    }
+
+    int getSentRequests() {
+        return this.sentRequests;
+    }
+
+    long getDurationMillis() {
+        return this.durationMillis;
+    }
+
+    private List<BookDTO> preload() {
+        List<Long> hotIds = readHotIds();
+        if (hotIds.isEmpty()) {
+            hotIds = this.booksService.findPage(null, this.hotBooks).stream()
+                    .map(BookDTO::getId)
+                    .collect(toList());
+        }
+        // the books that are fetched are put in the cache on the way
+        List<BookDTO> books = this.booksService.selectByIds(hotIds).getBooks();
+        this.preloadedBooks = books.size();
+        return books;
+    }
+
+    private List<Long> readHotIds() {
+        if (StringUtils.isBlank(this.hotIdsFile) || !Files.isReadable(Paths.get(this.hotIdsFile))) {
+            return Collections.emptyList();
+        }
+        try {
+            return Files.readAllLines(Paths.get(this.hotIdsFile), StandardCharsets.UTF_8).stream()
+                    .map(String::trim)
+                    .filter(StringUtils::isNumeric)
+                    .map(Long::valueOf)
+                    .limit(this.hotBooks)
+                    .collect(toList());
+        } catch (IOException ex) {
+            log.error(ex.getLocalizedMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private void exercise(List<BookDTO> books, long deadline) {
+        if (books.isEmpty() || !(this.applicationContext instanceof WebServerApplicationContext)) {
+            return;
+        }
+        int port = ((WebServerApplicationContext) this.applicationContext).getWebServer().getPort();
+        String baseUrl = "http://localhost:" + port + this.contextPath + "/books";
+        RestTemplate restTemplate = this.restTemplateBuilder
+                .setConnectTimeout(Duration.ofSeconds(1))
+                .setReadTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(StringConstants.API_KEY_HEADER, WARMUP_CLIENT);
+        HttpEntity<Void> request = new HttpEntity<>(headers);
+        String selectedIds = books.stream().limit(10).map(book -> String.valueOf(book.getId())).collect(joining(","));
+        for (int i = 0; i < this.iterations && System.nanoTime() < deadline; i++) {
+            BookDTO book = books.get(i % books.size());
+            send(restTemplate, request, baseUrl + "?limit=100");
+            send(restTemplate, request, baseUrl + "/" + book.getId());
+            send(restTemplate, request, baseUrl + "/select/" + selectedIds);
+            send(restTemplate, request, baseUrl + "/search?q={q}", Objects.toString(book.getAuthor(), "book"));
+            send(restTemplate, request, baseUrl + "/stats");
+        }
+    }
+
+    private void send(RestTemplate restTemplate, HttpEntity<Void> request, String url, Object... uriVariables) {
+        try {
+            restTemplate.exchange(url, HttpMethod.GET, request, byte[].class, uriVariables);
+        } catch (RestClientException ex) {
+            // rejected or failed requests warm up the same paths
+            log.debug(ex.getLocalizedMessage());
+        }
+        this.sentRequests++;
+    }
+
+    enum WarmupStatus {
+        PENDING, RUNNING, SKIPPED, DONE
+    }
+}
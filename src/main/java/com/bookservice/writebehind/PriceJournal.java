@@ -0,0 +1,186 @@
+package com.bookservice.writebehind;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only journal of the buffered price updates, one "id price version"
+ * line per update, the version being the one of the book when the update was
+ * accepted. The journal is split into segments: the buffer rotates to a new
+ * segment when it drains its updates, and deletes the older segments once the
+ * drained updates are committed. Segments left behind by a crash are replayed
+ * at startup, a torn last line is skipped. A replayed update that was already
+ * committed, or that a later write superseded, no longer matches the version
+ * of its book and is not written again
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+public class PriceJournal {
+
+    private static final String SEGMENT_PREFIX = "prices-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final List<Path> closedSegments = new ArrayList<>();
+    private long nextSegment;
+    private volatile FileChannel channel;
+    private Path currentSegment;
+
+    /**
+     * Opens the journal in the given directory, the segments already present
+     * are kept for {@link #replay()} and deleted by the next {@link #rotate()}
+     *
+     * @param directory directory of the segments, created if missing
+     * @param fsync     true to force every update to the disk before it is acknowledged
+     * @throws IOException if the directory or the first segment cannot be created
+     */
+    public PriceJournal(Path directory, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            segments.forEach(this.closedSegments::add);
+        }
+        Collections.sort(this.closedSegments);
+        this.nextSegment = this.closedSegments.isEmpty() ? 0L : segmentNumber(this.closedSegments.get(this.closedSegments.size() - 1)) + 1;
+        openSegment();
+    }
+
+    /**
+     * Reads the updates of the segments left by the previous run
+     *
+     * @return latest update per book id, in journal order
+     */
+    public Map<Long, Entry> replay() {
+        Map<Long, Entry> prices = new LinkedHashMap<>();
+        for (Path segment : this.closedSegments) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while (null != (line = reader.readLine())) {
+                    String[] fields = line.split(" ");
+                    if (fields.length != 3) {
+                        log.warn("Skipping journal line: {}", line);
+                        continue;
+                    }
+                    try {
+                        Long bookId = Long.valueOf(fields[0]);
+                        prices.remove(bookId);
+                        prices.put(bookId, new Entry(Double.parseDouble(fields[1]), Long.parseLong(fields[2])));
+                    } catch (NumberFormatException ex) {
+                        log.warn("Skipping journal line: {}", line);
+                    }
+                }
+            } catch (IOException ex) {
+                log.error(ex.getLocalizedMessage());
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * Appends an update to the current segment. Appends may run concurrently
+     * with each other but not with {@link #rotate()}
+     *
+     * @param bookId  id of the book
+     * @param price   new price of the book
+     * @param version version of the book the update applies to
+     * @throws IOException if the update cannot be written
+     */
+    public void append(long bookId, double price, long version) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((bookId + " " + price + " " + version + "\n").getBytes(StandardCharsets.UTF_8));
+        FileChannel segment = this.channel;
+        while (line.hasRemaining()) {
+            segment.write(line);
+        }
+        if (this.fsync) {
+            segment.force(false);
+        }
+    }
+
+    /**
+     * Closes the current segment and starts a new one. Must not run concurrently
+     * with {@link #append(long, double, long)}
+     *
+     * @return the segments holding the updates appended so far
+     */
+    public List<Path> rotate() {
+        try {
+            this.channel.close();
+            this.closedSegments.add(this.currentSegment);
+            openSegment();
+        } catch (IOException ex) {
+            log.error(ex.getLocalizedMessage());
+        }
+        List<Path> segments = new ArrayList<>(this.closedSegments);
+        this.closedSegments.clear();
+        return segments;
+    }
+
+    /**
+     * Deletes segments whose updates are committed
+     *
+     * @param segments segments returned by {@link #rotate()}
+     */
+    public void delete(List<Path> segments) {
+        for (Path segment : segments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException ex) {
+                log.error(ex.getLocalizedMessage());
+            }
+        }
+    }
+
+    /**
+     * Keeps segments whose updates could not be committed, they are returned
+     * again by the next {@link #rotate()}
+     *
+     * @param segments segments returned by {@link #rotate()}
+     */
+    public void retain(List<Path> segments) {
+        this.closedSegments.addAll(0, segments);
+    }
+
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private void openSegment() throws IOException {
+        Path segment = this.directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, this.nextSegment++, SEGMENT_SUFFIX));
+        this.channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.currentSegment = segment;
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Update read back from the journal
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final double price;
+        private final long version;
+    }
+}
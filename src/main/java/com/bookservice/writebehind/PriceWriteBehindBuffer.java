@@ -0,0 +1,302 @@
+package com.bookservice.writebehind;
+
+import com.bookservice.dto.BookDTO;
+import com.bookservice.event.BookChangedEvent;
+import com.bookservice.metrics.BookMetrics;
+import com.bookservice.repository.BooksRepository;
+import com.bookservice.sharding.BookShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind buffer of the price updates, flushed as JDBC batches per shard.
+ * An update is only written if the book still has the version it was accepted on
+ *
+ * @author NIHARIKA GADDE
+ */
+@Slf4j
+@Lazy(false)
+@Component
+public class PriceWriteBehindBuffer {
+
+    private static final String METRIC_PREFIX = "books.write-behind";
+
+    private static final String UPDATE_PRICE = "update book set price = ?, version = version + 1, last_modified = ? "
+            + "where id = ? and version = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BooksRepository booksRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BookMetrics bookMetrics;
+
+    @Autowired
+    private BookShards bookShards;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${books.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${books.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${books.write-behind.flush-interval-millis:1000}")
+    private long flushIntervalMillis;
+
+    @Value("${books.write-behind.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${books.write-behind.journal-dir:}")
+    private String journalDir;
+
+    @Value("${books.write-behind.journal-fsync:false}")
+    private boolean journalFsync;
+
+    private final Map<Long, PendingPrice> pending = new ConcurrentHashMap<>();
+    private final ReadWriteLock drainLock = new ReentrantReadWriteLock();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private PriceJournal journal;
+    private ScheduledExecutorService flusher;
+    private TransactionTemplate transactionTemplate;
+    private Counter buffered;
+    private Counter coalesced;
+    private Counter rejected;
+    private Counter superseded;
+    private Counter flushed;
+    private Timer flushTimer;
+    private Timer lagTimer;
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!this.enabled) {
+            return;
+        }
+        this.transactionTemplate = new TransactionTemplate(this.transactionManager);
+        this.buffered = this.meterRegistry.counter(METRIC_PREFIX + ".updates", "result", "buffered");
+        this.coalesced = this.meterRegistry.counter(METRIC_PREFIX + ".updates", "result", "coalesced");
+        this.rejected = this.meterRegistry.counter(METRIC_PREFIX + ".updates", "result", "rejected");
+        this.superseded = this.meterRegistry.counter(METRIC_PREFIX + ".updates", "result", "superseded");
+        this.flushed = this.meterRegistry.counter(METRIC_PREFIX + ".flushed");
+        this.flushTimer = this.meterRegistry.timer(METRIC_PREFIX + ".flush");
+        this.lagTimer = Timer.builder(METRIC_PREFIX + ".lag")
+                .description("Time between the acceptance of a price update and its commit")
+                .publishPercentileHistogram()
+                .register(this.meterRegistry);
+        this.meterRegistry.gauge(METRIC_PREFIX + ".pending", this.pending, Map::size);
+        if (StringUtils.isNotBlank(this.journalDir)) {
+            Path directory = Paths.get(this.journalDir);
+            this.journal = new PriceJournal(directory, this.journalFsync);
+            long now = System.nanoTime();
+            this.journal.replay().forEach((bookId, entry) -> this.pending.put(bookId,
+                    new PendingPrice(bookId, entry.getPrice(), entry.getVersion(), this.sequence.incrementAndGet(), now)));
+            if (!this.pending.isEmpty()) {
+                log.info("Replaying {} price updates from {}", this.pending.size(), directory);
+            }
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "books-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flush, 0, this.flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void close() throws IOException, InterruptedException {
+        if (!this.enabled) {
+            return;
+        }
+        this.flusher.shutdown();
+        this.flusher.awaitTermination(this.flushIntervalMillis * 10, TimeUnit.MILLISECONDS);
+        flush();
+        if (null != this.journal) {
+            this.journal.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Buffers a new price of a book. The update is refused when the buffer is
+     * disabled or full, or when it cannot be journaled, and must then be written
+     * right away by the caller
+     *
+     * @param bookId  id of the book
+     * @param price   new price of the book
+     * @param version current version of the book, the update is dropped if the
+     *                book has another version when it is written
+     * @return true if the update is accepted
+     */
+    public boolean offer(Long bookId, double price, long version) {
+        if (!this.enabled || this.pending.size() >= this.maxPending) {
+            if (this.enabled) {
+                this.rejected.increment();
+            }
+            return false;
+        }
+        boolean[] replaced = {false};
+        this.drainLock.readLock().lock();
+        try {
+            if (null != this.journal) {
+                this.journal.append(bookId, price, version);
+            }
+            long seq = this.sequence.incrementAndGet();
+            long now = System.nanoTime();
+            this.pending.compute(bookId, (id, current) -> {
+                replaced[0] = null != current;
+                return new PendingPrice(id, price, version, seq, null == current ? now : current.acceptedAt);
+            });
+        } catch (IOException ex) {
+            log.error(ex.getLocalizedMessage());
+            this.rejected.increment();
+            return false;
+        } finally {
+            this.drainLock.readLock().unlock();
+        }
+        (replaced[0] ? this.coalesced : this.buffered).increment();
+        if (this.pending.size() >= this.batchSize && this.flushRequested.compareAndSet(false, true)) {
+            try {
+                this.flusher.execute(this::flush);
+            } catch (RejectedExecutionException ex) {
+                log.warn(ex.getLocalizedMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the buffered updates, shard by shard. The updates of a failed shard
+     * are put back in the buffer, unless a newer update of the same book has been
+     * accepted meanwhile, and the journal segments are kept until every shard
+     * has committed them
+     */
+    synchronized void flush() {
+        this.flushRequested.set(false);
+        List<PendingPrice> updates = new ArrayList<>();
+        List<Path> segments = Collections.emptyList();
+        this.drainLock.writeLock().lock();
+        try {
+            if (null != this.journal) {
+                segments = this.journal.rotate();
+            }
+            for (Long bookId : this.pending.keySet()) {
+                PendingPrice update = this.pending.remove(bookId);
+                if (null != update) {
+                    updates.add(update);
+                }
+            }
+        } finally {
+            this.drainLock.writeLock().unlock();
+        }
+        boolean[] failed = {false};
+        this.bookShards.groupByShard(updates, update -> update.bookId).forEach((shard, shardUpdates) -> {
+            try {
+                this.flushTimer.record(() -> {
+                    this.bookShards.onShard(shard, () -> this.transactionTemplate.execute(status -> write(shardUpdates)));
+                });
+                long now = System.nanoTime();
+                shardUpdates.forEach(update -> this.lagTimer.record(now - update.acceptedAt, TimeUnit.NANOSECONDS));
+                this.flushed.increment(shardUpdates.size());
+            } catch (Exception ex) {
+                log.error(ex.getLocalizedMessage());
+                this.bookMetrics.countFailure("writeBehindFlush", ex);
+                shardUpdates.forEach(update -> this.pending.merge(update.bookId, update,
+                        (newer, older) -> newer.seq > older.seq ? newer : older));
+                failed[0] = true;
+            }
+        });
+        if (null != this.journal) {
+            if (failed[0]) {
+                this.journal.retain(segments);
+            } else {
+                this.journal.delete(segments);
+            }
+        }
+    }
+
+    private Void write(List<PendingPrice> updates) {
+        Timestamp modifiedAt = Timestamp.from(Instant.now());
+        int[][] counts = this.jdbcTemplate.batchUpdate(UPDATE_PRICE, updates, this.batchSize, (ps, update) -> {
+            ps.setDouble(1, update.price);
+            ps.setTimestamp(2, modifiedAt);
+            ps.setLong(3, update.bookId);
+            ps.setLong(4, update.version);
+        });
+        List<Long> updatedIds = new ArrayList<>(updates.size());
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0 || Statement.SUCCESS_NO_INFO == count) {
+                    updatedIds.add(updates.get(index).bookId);
+                } else {
+                    this.superseded.increment();
+                }
+                index++;
+            }
+        }
+        for (int from = 0; from < updatedIds.size(); from += this.batchSize) {
+            List<BookDTO> books = this.booksRepository.findBookDTOsByIdIn(
+                    updatedIds.subList(from, Math.min(from + this.batchSize, updatedIds.size())));
+            books.forEach(book -> this.eventPublisher.publishEvent(BookChangedEvent.upsert(book)));
+        }
+        return null;
+    }
+
+    @AllArgsConstructor
+    private static class PendingPrice {
+        private final long bookId;
+        private final double price;
+        private final long version;
+        private final long seq;
+        private final long acceptedAt;
+    }
+}
@@ -0,0 +1,30 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Restarts book_change_seq above the sequence numbers already in book_change,
+ * some of which were taken from the snowflake ids, so that the log keeps
+ * increasing once it is numbered by the sequence again
+ *
+ * @author NIHARIKA GADDE
+ */
+public class V5__Continue_book_change_seq extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            long next;
+            try (ResultSet rs = statement.executeQuery("select coalesce(max(seq), 0) + 1 from book_change")) {
+                rs.next();
+                next = rs.getLong(1);
+            }
+            statement.execute("drop sequence book_change_seq");
+            statement.execute("create sequence book_change_seq start with " + next + " increment by 1");
+        }
+    }
+}
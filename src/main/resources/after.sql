@@ -1 +0,0 @@
-delete from book where author = 'SpallyaTest'
\ No newline at end of file
@@ -1 +0,0 @@
-INSERT INTO book (id, name, author, genre, description, price, published_year) VALUES (1000, 'Test Book', 'SpallyaTest', 'test', 'Test Book', 20.00, '2019');
\ No newline at end of file
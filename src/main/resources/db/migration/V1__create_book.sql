@@ -0,0 +1,19 @@
+CREATE SEQUENCE book_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE book (
+    id             BIGINT           NOT NULL,
+    name           VARCHAR(255),
+    author         VARCHAR(255),
+    genre          VARCHAR(255),
+    description    VARCHAR(255),
+    price          DOUBLE,
+    published_year INTEGER,
+    version        BIGINT,
+    last_modified  TIMESTAMP,
+    CONSTRAINT pk_book PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_book_author ON book (author, id);
+CREATE INDEX idx_book_genre_price ON book (genre, price, id);
+CREATE INDEX idx_book_price ON book (price, id);
+CREATE INDEX idx_book_published_year ON book (published_year, id);
@@ -0,0 +1,9 @@
+CREATE SEQUENCE book_change_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE book_change (
+    seq         BIGINT      NOT NULL,
+    book_id     BIGINT      NOT NULL,
+    change_type VARCHAR(16) NOT NULL,
+    changed_at  TIMESTAMP   NOT NULL,
+    CONSTRAINT pk_book_change PRIMARY KEY (seq)
+);
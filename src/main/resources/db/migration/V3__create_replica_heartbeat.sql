@@ -0,0 +1,7 @@
+CREATE TABLE replica_heartbeat (
+    id      INTEGER   NOT NULL,
+    beat_at TIMESTAMP NOT NULL,
+    CONSTRAINT pk_replica_heartbeat PRIMARY KEY (id)
+);
+
+INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, CURRENT_TIMESTAMP);
@@ -0,0 +1,6 @@
+CREATE TABLE node_lease (
+    node_id    INTEGER      NOT NULL,
+    owner      VARCHAR(255) NOT NULL,
+    expires_at TIMESTAMP    NOT NULL,
+    CONSTRAINT pk_node_lease PRIMARY KEY (node_id)
+);
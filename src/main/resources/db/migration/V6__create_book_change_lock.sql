@@ -0,0 +1,6 @@
+CREATE TABLE book_change_lock (
+    id INTEGER NOT NULL,
+    CONSTRAINT pk_book_change_lock PRIMARY KEY (id)
+);
+
+INSERT INTO book_change_lock (id) VALUES (1);
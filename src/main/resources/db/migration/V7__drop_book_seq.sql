@@ -0,0 +1 @@
+DROP SEQUENCE book_seq;
@@ -0,0 +1,115 @@
+package com.bookservice.cache;
+
+import com.bookservice.dto.BookDTO;
+import com.bookservice.event.BookChangedEvent;
+import com.bookservice.event.RemoteBookChangedEvent;
+import com.bookservice.sharding.BookShards;
+import com.bookservice.sharding.ShardRoutingDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests of the {@link BookIdFilter}, which must never report an existing book absent
+ *
+ * @author NIHARIKA GADDE
+ */
+public class BookIdFilterTest {
+
+    private static final int EXPECTED_IDS = 10000;
+
+    private final Random random = new Random(42L);
+
+    private JdbcTemplate jdbcTemplate;
+    private BookIdFilter filter;
+
+    @Before
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:book-id-filter;DB_CLOSE_DELAY=-1");
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.execute("create table book (id bigint not null primary key)");
+        BookShards bookShards = new BookShards(new DefaultListableBeanFactory().getBeanProvider(ShardRoutingDataSource.class),
+                Runnable::run, 0);
+        this.filter = new BookIdFilter(true, EXPECTED_IDS, 0.01, 60000L, dataSource, bookShards);
+    }
+
+    @After
+    public void tearDown() {
+        this.jdbcTemplate.execute("drop table book");
+    }
+
+    @Test
+    public void loadedIdsAreNeverReportedAbsent() {
+        List<Object[]> ids = new ArrayList<>();
+        for (int i = 0; i < EXPECTED_IDS; i++) {
+            ids.add(new Object[]{oldId()});
+        }
+        this.jdbcTemplate.batchUpdate("insert into book (id) values (?)", ids);
+        this.filter.loadIds();
+        for (Object[] id : ids) {
+            assertThat(this.filter.mightContain((Long) id[0])).isTrue();
+        }
+    }
+
+    @Test
+    public void changedIdsAreNeverReportedAbsent() {
+        this.filter.loadIds();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < EXPECTED_IDS; i++) {
+            long id = oldId();
+            ids.add(id);
+            if (0 == i % 2) {
+                this.filter.onBookChanged(BookChangedEvent.upsert(BookDTO.builder().id(id).build()));
+            } else {
+                this.filter.onRemoteBookChanged(new RemoteBookChangedEvent(id, 1L, false));
+            }
+        }
+        for (Long id : ids) {
+            assertThat(this.filter.mightContain(id)).isTrue();
+        }
+    }
+
+    @Test
+    public void recentIdsOfOtherNodesMayExist() {
+        this.filter.loadIds();
+        long recentId = (System.currentTimeMillis() - 1577836800000L) << 22;
+        assertThat(this.filter.mightContain(recentId)).isTrue();
+    }
+
+    @Test
+    public void mostUnknownIdsAreReportedAbsent() {
+        for (int i = 0; i < EXPECTED_IDS; i++) {
+            this.filter.onBookChanged(BookChangedEvent.upsert(BookDTO.builder().id(oldId()).build()));
+        }
+        this.filter.loadIds();
+        int falsePositives = 0;
+        for (int i = 0; i < EXPECTED_IDS; i++) {
+            if (this.filter.mightContain(oldId())) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(EXPECTED_IDS / 20);
+    }
+
+    @Test
+    public void everyIdMayExistUntilTheFilterIsLoaded() {
+        assertThat(this.filter.mightContain(oldId())).isTrue();
+    }
+
+    /**
+     * Snowflake id of 2021, out of the propagation window
+     */
+    private long oldId() {
+        long millis = 31536000000L + this.random.nextInt(1000000000);
+        return millis << 22 | this.random.nextInt(1 << 22);
+    }
+}
@@ -0,0 +1,107 @@
+package com.bookservice.changelog;
+
+import com.bookservice.dto.BookChangeDTO;
+import com.bookservice.event.BookChangedEvent;
+import com.bookservice.exception.InvalidRequestException;
+import com.bookservice.sharding.BookShards;
+import com.bookservice.sharding.ShardRoutingDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests of the order of the {@link BookChangeLog}
+ *
+ * @author NIHARIKA GADDE
+ */
+public class BookChangeLogTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private BookChangeLog changeLog;
+
+    @Before
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:book-change-log;DB_CLOSE_DELAY=-1");
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.execute("create sequence book_change_seq start with 1 increment by 1");
+        this.jdbcTemplate.execute("create table book_change (seq bigint not null primary key, book_id bigint not null, "
+                + "change_type varchar(16) not null, changed_at timestamp not null)");
+        this.jdbcTemplate.execute("create table book_change_lock (id integer not null primary key)");
+        this.jdbcTemplate.execute("insert into book_change_lock (id) values (1)");
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.changeLog = new BookChangeLog();
+        ReflectionTestUtils.setField(this.changeLog, "jdbcTemplate", this.jdbcTemplate);
+        ReflectionTestUtils.setField(this.changeLog, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(this.changeLog, "bookShards", new BookShards(
+                new DefaultListableBeanFactory().getBeanProvider(ShardRoutingDataSource.class), Runnable::run, 0));
+        this.changeLog.init();
+    }
+
+    @After
+    public void tearDown() {
+        this.changeLog.close();
+        this.jdbcTemplate.execute("drop table book_change_lock");
+        this.jdbcTemplate.execute("drop table book_change");
+        this.jdbcTemplate.execute("drop sequence book_change_seq");
+    }
+
+    @Test
+    public void changesAreReadInCommitOrder() {
+        this.changeLog.onBookChanged(BookChangedEvent.delete(5L));
+        this.transactionTemplate.execute(status -> {
+            this.changeLog.onBookChanged(BookChangedEvent.delete(3L));
+            this.changeLog.onBookChanged(BookChangedEvent.delete(9L));
+            return null;
+        });
+        this.changeLog.onBookChanged(BookChangedEvent.delete(1L));
+
+        List<BookChangeDTO> changes = this.changeLog.findSince(this.changeLog.parseCursor("0"), 10).getChanges();
+        assertThat(changes.stream().map(BookChangeDTO::getBookId).collect(toList())).containsExactly(5L, 3L, 9L, 1L);
+        assertThat(changes.stream().map(BookChangeDTO::getSeq).collect(toList())).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    public void changesOfARolledBackTransactionAreNotLogged() {
+        this.transactionTemplate.execute(status -> {
+            this.changeLog.onBookChanged(BookChangedEvent.delete(3L));
+            status.setRollbackOnly();
+            return null;
+        });
+        BookChangeLog.Page page = this.changeLog.findSince(this.changeLog.parseCursor("0"), 10);
+        assertThat(page.getChanges()).isEmpty();
+        assertThat(page.isExhausted()).isTrue();
+        assertThat(page.getNextCursor()).isEqualTo("0");
+    }
+
+    @Test
+    public void changesAreReadAfterTheCursorUpToTheLimit() {
+        for (long bookId = 1L; bookId <= 5L; bookId++) {
+            this.changeLog.onBookChanged(BookChangedEvent.delete(bookId));
+        }
+        BookChangeLog.Page first = this.changeLog.findSince(this.changeLog.parseCursor("0"), 2);
+        assertThat(first.getChanges().stream().map(BookChangeDTO::getBookId).collect(toList())).containsExactly(1L, 2L);
+        assertThat(first.getNextCursor()).isEqualTo("2");
+
+        BookChangeLog.Page rest = this.changeLog.findSince(this.changeLog.parseCursor(first.getNextCursor()), 10);
+        assertThat(rest.getChanges().stream().map(BookChangeDTO::getBookId).collect(toList())).containsExactly(3L, 4L, 5L);
+        assertThat(rest.getNextCursor()).isEqualTo("5");
+    }
+
+    @Test(expected = InvalidRequestException.class)
+    public void aCursorOfAnotherShardCountIsRejected() {
+        this.changeLog.parseCursor("3,4");
+    }
+}
@@ -0,0 +1,263 @@
+package com.bookservice.controller;
+
+import com.bookservice.constants.StringConstants;
+import com.bookservice.dto.BookDTO;
+import com.bookservice.dto.BookSelectionDTO;
+import com.bookservice.util.Utils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests of the {@link BooksController} endpoints over HTTP
+ *
+ * @author NIHARIKA GADDE
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:books-controller-test",
+        "books.warmup.enabled=false",
+        "books.select.batch-size=2",
+        "books.write-behind.enabled=true",
+        "books.write-behind.flush-interval-millis=50"
+})
+public class BooksControllerTest {
+
+    private static final long MISSING_ID = 1L;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void booksArePagedWithTheNextCursor() {
+        for (int i = 0; i < 3; i++) {
+            addBook("Paged " + i, "Paged Author", 10.0 + i);
+        }
+        ResponseEntity<BookDTO[]> first = getBooks("/books?author={author}&limit=2", "Paged Author");
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getBody()).extracting(BookDTO::getName).containsExactly("Paged 0", "Paged 1");
+        String cursor = first.getHeaders().getFirst(StringConstants.NEXT_CURSOR_HEADER);
+        assertThat(cursor).isNotBlank();
+
+        ResponseEntity<BookDTO[]> rest = getBooks("/books?author={author}&limit=2&after={after}", "Paged Author", cursor);
+        assertThat(rest.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(rest.getBody()).extracting(BookDTO::getName).containsExactly("Paged 2");
+        assertThat(rest.getHeaders().containsKey(StringConstants.NEXT_CURSOR_HEADER)).isFalse();
+    }
+
+    @Test
+    public void sortedPagesContinueAfterTheCursor() {
+        for (int i = 0; i < 3; i++) {
+            addBook("Sorted " + i, "Sorted Author", 10.0 + i);
+        }
+        ResponseEntity<BookDTO[]> first = getBooks("/books?author={author}&sort=price&direction=desc&limit=2", "Sorted Author");
+        assertThat(first.getBody()).extracting(BookDTO::getName).containsExactly("Sorted 2", "Sorted 1");
+        String cursor = first.getHeaders().getFirst(StringConstants.NEXT_CURSOR_HEADER);
+
+        ResponseEntity<BookDTO[]> rest = getBooks("/books?author={author}&sort=price&direction=desc&limit=2&after={after}",
+                "Sorted Author", cursor);
+        assertThat(rest.getBody()).extracting(BookDTO::getName).containsExactly("Sorted 0");
+    }
+
+    @Test
+    public void anEmptyPageIsAnsweredWithNoContent() {
+        ResponseEntity<BookDTO[]> response = getBooks("/books?author={author}", "Unknown Author");
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+    }
+
+    @Test
+    public void selectedBooksKeepTheRequestOrderAndReportTheMissingIds() {
+        BookDTO first = addBook("Selected 0", "Selected Author", 10.0);
+        BookDTO second = addBook("Selected 1", "Selected Author", 11.0);
+        BookDTO third = addBook("Selected 2", "Selected Author", 12.0);
+        String ids = third.getId() + "," + MISSING_ID + "," + first.getId() + "," + third.getId() + "," + second.getId();
+
+        ResponseEntity<BookDTO[]> response = getBooks("/books/select/{ids}", ids);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).extracting(BookDTO::getId).containsExactly(third.getId(), first.getId(), second.getId());
+        assertThat(response.getHeaders().getFirst(StringConstants.MISSING_BOOK_IDS_HEADER)).isEqualTo(String.valueOf(MISSING_ID));
+    }
+
+    @Test
+    public void selectionsSentInTheBodyReportTheMissingIds() {
+        BookDTO first = addBook("Posted 0", "Posted Author", 10.0);
+        BookDTO second = addBook("Posted 1", "Posted Author", 11.0);
+        List<Long> ids = Arrays.asList(second.getId(), MISSING_ID, first.getId());
+
+        ResponseEntity<BookSelectionDTO> response = this.restTemplate.exchange("/books/select", HttpMethod.POST,
+                new HttpEntity<>(ids, jsonHeaders()), BookSelectionDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getBooks()).extracting(BookDTO::getId).containsExactly(second.getId(), first.getId());
+        assertThat(response.getBody().getMissingIds()).containsExactly(MISSING_ID);
+    }
+
+    @Test
+    public void aSelectionOfMissingBooksIsAnsweredWithNoContent() {
+        ResponseEntity<BookDTO[]> response = getBooks("/books/select/{ids}", String.valueOf(MISSING_ID));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+    }
+
+    @Test
+    public void aMatchingIfNoneMatchIsAnsweredWithNotModified() {
+        BookDTO book = addBook("Tagged", "Tagged Author", 10.0);
+        ResponseEntity<BookDTO> found = getBook(book.getId(), null);
+        assertThat(found.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String eTag = found.getHeaders().getETag();
+        assertThat(eTag).isEqualTo(Utils.getBookETag(book.getId(), book.getVersion()));
+
+        ResponseEntity<BookDTO> notModified = getBook(book.getId(), eTag);
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getHeaders().getETag()).isEqualTo(eTag);
+        assertThat(notModified.getBody()).isNull();
+    }
+
+    @Test
+    public void anUpdatedBookIsAnsweredAgainForItsOldETag() {
+        BookDTO book = addBook("Retagged", "Retagged Author", 10.0);
+        String oldETag = getBook(book.getId(), null).getHeaders().getETag();
+        book.setPrice(20.0);
+        assertThat(putBook(book, oldETag).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        ResponseEntity<BookDTO> found = getBook(book.getId(), oldETag);
+        assertThat(found.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(found.getBody().getPrice()).isEqualTo(20.0);
+        assertThat(found.getHeaders().getETag()).isNotEqualTo(oldETag);
+    }
+
+    @Test
+    public void anUpdateWithAStaleIfMatchFailsItsPrecondition() {
+        BookDTO book = addBook("Guarded", "Guarded Author", 10.0);
+        String oldETag = getBook(book.getId(), null).getHeaders().getETag();
+        book.setPrice(20.0);
+        ResponseEntity<BookDTO> updated = putBook(book, oldETag);
+        assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        book.setPrice(30.0);
+        assertThat(putBook(book, oldETag).getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(putBook(book, updated.getHeaders().getETag()).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void anUnchangedCatalogueIsAnsweredWithNotModified() {
+        addBook("Listed", "Listed Author", 10.0);
+        ResponseEntity<BookDTO[]> listed = getBooks("/books?author={author}", "Listed Author");
+        String eTag = listed.getHeaders().getETag();
+        assertThat(eTag).isNotNull();
+
+        HttpHeaders headers = jsonHeaders();
+        headers.setIfNoneMatch(eTag);
+        ResponseEntity<BookDTO[]> notModified = this.restTemplate.exchange("/books?author={author}", HttpMethod.GET,
+                new HttpEntity<>(headers), BookDTO[].class, "Listed Author");
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    public void aPriceChangeIsBufferedAndAccepted() throws Exception {
+        BookDTO book = addBook("Buffered", "Buffered Author", 10.0);
+        patchPrice(book.getId(), 25.0, null)
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, endsWith("/books/" + book.getId())));
+
+        assertThat(awaitPrice(book.getId(), 25.0).getPrice()).isEqualTo(25.0);
+    }
+
+    @Test
+    public void aConditionalPriceChangeIsWrittenRightAway() throws Exception {
+        BookDTO book = addBook("Unbuffered", "Unbuffered Author", 10.0);
+        String eTag = getBook(book.getId(), null).getHeaders().getETag();
+        patchPrice(book.getId(), 25.0, eTag)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value(25.0));
+    }
+
+    private BookDTO addBook(String name, String author, double price) {
+        BookDTO book = BookDTO.builder().name(name).author(author).genre("Test").price(price).publishedYear(2019).build();
+        ResponseEntity<BookDTO> response = this.restTemplate.exchange("/books", HttpMethod.POST,
+                new HttpEntity<>(book, jsonHeaders()), BookDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return response.getBody();
+    }
+
+    private ResponseEntity<BookDTO> getBook(Long bookId, String ifNoneMatch) {
+        HttpHeaders headers = jsonHeaders();
+        if (null != ifNoneMatch) {
+            headers.setIfNoneMatch(ifNoneMatch);
+        }
+        return this.restTemplate.exchange("/books/{id}", HttpMethod.GET, new HttpEntity<>(headers), BookDTO.class, bookId);
+    }
+
+    private ResponseEntity<BookDTO> putBook(BookDTO book, String ifMatch) {
+        HttpHeaders headers = jsonHeaders();
+        headers.setIfMatch(ifMatch);
+        return this.restTemplate.exchange("/books/{id}", HttpMethod.PUT, new HttpEntity<>(book, headers), BookDTO.class, book.getId());
+    }
+
+    private ResultActions patchPrice(Long bookId, double price, String ifMatch) throws Exception {
+        MockHttpServletRequestBuilder patchRequest = patch("/books/{id}", bookId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content("{\"price\": " + price + "}");
+        if (null != ifMatch) {
+            patchRequest.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        MvcResult result = this.mockMvc.perform(patchRequest)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return this.mockMvc.perform(asyncDispatch(result));
+    }
+
+    private BookDTO awaitPrice(Long bookId, double price) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        BookDTO book = getBook(bookId, null).getBody();
+        while (price != book.getPrice() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            book = getBook(bookId, null).getBody();
+        }
+        return book;
+    }
+
+    private ResponseEntity<BookDTO[]> getBooks(String url, Object... uriVariables) {
+        return this.restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(jsonHeaders()), BookDTO[].class, uriVariables);
+    }
+
+    private static HttpHeaders jsonHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+        return headers;
+    }
+}
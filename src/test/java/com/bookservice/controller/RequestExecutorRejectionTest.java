@@ -0,0 +1,84 @@
+package com.bookservice.controller;
+
+import com.bookservice.config.ExecutorConfig;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests of the answer of the {@link BooksController} when its request executor
+ * is saturated, the executor has one worker and room for one queued task
+ *
+ * @author NIHARIKA GADDE
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:request-executor-rejection-test",
+        "books.warmup.enabled=false",
+        "books.async.pool-size=1",
+        "books.async.queue-capacity=1",
+        "books.async.retry-after-seconds=2"
+})
+public class RequestExecutorRejectionTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    @Qualifier(ExecutorConfig.REQUEST_EXECUTOR)
+    private ThreadPoolTaskExecutor requestExecutor;
+
+    @Test
+    public void requestsBeyondTheQueueAreAnsweredWithServiceUnavailable() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch drained = new CountDownLatch(1);
+        try {
+            this.requestExecutor.execute(() -> {
+                started.countDown();
+                awaitQuietly(release);
+            });
+            started.await();
+            this.requestExecutor.execute(() -> {
+                awaitQuietly(release);
+                drained.countDown();
+            });
+
+            ResponseEntity<String> rejected = this.restTemplate.getForEntity("/books/1", String.class);
+            assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        } finally {
+            release.countDown();
+            drained.await(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void requestsAreServedOnceTheExecutorHasRoom() {
+        ResponseEntity<String> response = this.restTemplate.getForEntity("/books/1", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
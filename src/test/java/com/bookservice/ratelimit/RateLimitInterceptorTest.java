@@ -0,0 +1,67 @@
+package com.bookservice.ratelimit;
+
+import com.bookservice.constants.StringConstants;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests of the rate limit applied by the {@link RateLimitInterceptor}, every
+ * client and endpoint gets a burst of 3 requests and no refill during the test
+ *
+ * @author NIHARIKA GADDE
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rate-limit-test",
+        "books.warmup.enabled=false",
+        "books.ratelimit.tokens-per-second=0.01",
+        "books.ratelimit.burst=3",
+        "books.ratelimit.api-keys=known-key"
+})
+public class RateLimitInterceptorTest {
+
+    private static final int BURST = 3;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void requestsBeyondTheBurstAreAnsweredWithRetryAfter() {
+        for (int i = 0; i < BURST; i++) {
+            assertThat(get("/books/1", null).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        }
+        ResponseEntity<String> rejected = get("/books/1", null);
+        assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(Long.parseLong(rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER))).isBetween(1L, 100L);
+    }
+
+    @Test
+    public void unknownApiKeysShareTheBucketOfTheirAddress() {
+        for (int i = 0; i < BURST; i++) {
+            assertThat(get("/books/import/missing-job", "unknown-key-" + i).getStatusCode()).isNotEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        }
+        assertThat(get("/books/import/missing-job", "unknown-key-" + BURST).getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(get("/books/import/missing-job", "known-key").getStatusCode()).isNotEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    private ResponseEntity<String> get(String url, String apiKey) {
+        HttpHeaders headers = new HttpHeaders();
+        if (null != apiKey) {
+            headers.set(StringConstants.API_KEY_HEADER, apiKey);
+        }
+        return this.restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
@@ -0,0 +1,61 @@
+package com.bookservice.sharding;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests of the merge of the sorted results of the shards
+ *
+ * @author NIHARIKA GADDE
+ */
+public class BookShardsTest {
+
+    private static final Comparator<String> BY_RANK = Comparator.comparing(element -> element.charAt(1));
+
+    @Test
+    public void mergeKeepsTheOrderOfTheComparator() {
+        List<String> merged = BookShards.merge(Arrays.asList(
+                Arrays.asList("a1", "a4", "a6"),
+                Arrays.asList("b2", "b3"),
+                Collections.singletonList("c5")), BY_RANK, 10);
+        assertThat(merged).containsExactly("a1", "b2", "b3", "a4", "c5", "a6");
+    }
+
+    @Test
+    public void mergeTakesTiesInShardOrder() {
+        List<String> merged = BookShards.merge(Arrays.asList(
+                Arrays.asList("a1", "a2"),
+                Arrays.asList("b1", "b2"),
+                Arrays.asList("c1", "c2")), BY_RANK, 10);
+        assertThat(merged).containsExactly("a1", "b1", "c1", "a2", "b2", "c2");
+    }
+
+    @Test
+    public void mergeStopsAtTheLimit() {
+        List<String> merged = BookShards.merge(Arrays.asList(
+                Arrays.asList("a1", "a3"),
+                Arrays.asList("b2", "b4")), BY_RANK, 3);
+        assertThat(merged).containsExactly("a1", "b2", "a3");
+    }
+
+    @Test
+    public void mergeOfASingleShardStopsAtTheLimit() {
+        List<String> merged = BookShards.merge(Collections.singletonList(Arrays.asList("a1", "a2", "a3")), BY_RANK, 2);
+        assertThat(merged).containsExactly("a1", "a2");
+    }
+
+    @Test
+    public void mergeSkipsEmptyShards() {
+        List<String> merged = BookShards.merge(Arrays.asList(
+                Collections.<String>emptyList(),
+                Arrays.asList("b1", "b2"),
+                Collections.<String>emptyList()), BY_RANK, 10);
+        assertThat(merged).containsExactly("b1", "b2");
+    }
+}
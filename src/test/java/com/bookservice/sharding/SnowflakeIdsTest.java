@@ -0,0 +1,64 @@
+package com.bookservice.sharding;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests of the {@link SnowflakeIds} allocator
+ *
+ * @author NIHARIKA GADDE
+ */
+public class SnowflakeIdsTest {
+
+    private static final long NOW = 1700000000000L;
+
+    @Test
+    public void idsGrowWhenTheClockStepsBack() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIds ids = new SnowflakeIds(1, clock::get);
+        long previous = ids.nextId();
+        clock.set(NOW - 10000L);
+        for (int i = 0; i < 100; i++) {
+            long id = ids.nextId();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+        clock.set(NOW + 1L);
+        assertThat(ids.nextId()).isGreaterThan(previous);
+    }
+
+    @Test
+    public void idsGrowWhenTheSequenceOfAMillisecondIsExhausted() {
+        SnowflakeIds ids = new SnowflakeIds(1, () -> NOW);
+        long previous = ids.nextId();
+        for (int i = 0; i < 10000; i++) {
+            long id = ids.nextId();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+        assertThat(SnowflakeIds.millisOf(previous)).isGreaterThan(NOW);
+    }
+
+    @Test
+    public void idsCarryTheirTime() {
+        SnowflakeIds ids = new SnowflakeIds(1023, () -> NOW);
+        assertThat(SnowflakeIds.millisOf(ids.nextId())).isEqualTo(NOW);
+    }
+
+    @Test
+    public void nodesNeverCollide() {
+        long first = new SnowflakeIds(1, () -> NOW).nextId();
+        long second = new SnowflakeIds(2, () -> NOW).nextId();
+        assertThat(first).isNotEqualTo(second);
+    }
+
+    @Test
+    public void nodeIdsOutOfRangeAreRejected() {
+        assertThatThrownBy(() -> SnowflakeIds.forNode(1024)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SnowflakeIds.forNode(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
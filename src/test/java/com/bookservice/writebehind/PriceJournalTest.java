@@ -0,0 +1,68 @@
+package com.bookservice.writebehind;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests of the replay of the {@link PriceJournal}
+ *
+ * @author NIHARIKA GADDE
+ */
+public class PriceJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replaySkipsATornLastLine() throws IOException {
+        Path directory = this.folder.getRoot().toPath();
+        Files.write(directory.resolve("prices-0000000000000000000.log"),
+                "1 9.5 3\n2 4.0 1\n3 7.2".getBytes(StandardCharsets.UTF_8));
+        PriceJournal journal = new PriceJournal(directory, false);
+        Map<Long, PriceJournal.Entry> prices = journal.replay();
+        journal.close();
+        assertThat(prices).containsOnlyKeys(1L, 2L);
+        assertThat(prices.get(1L).getPrice()).isEqualTo(9.5);
+        assertThat(prices.get(1L).getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    public void replayKeepsTheLatestUpdateOfABook() throws IOException {
+        Path directory = this.folder.getRoot().toPath();
+        PriceJournal journal = new PriceJournal(directory, false);
+        journal.append(1L, 9.5, 3L);
+        journal.append(2L, 4.0, 1L);
+        journal.append(1L, 12.0, 4L);
+        journal.close();
+
+        PriceJournal reopened = new PriceJournal(directory, false);
+        Map<Long, PriceJournal.Entry> prices = reopened.replay();
+        reopened.close();
+        assertThat(prices.keySet()).containsExactly(2L, 1L);
+        assertThat(prices.get(1L).getPrice()).isEqualTo(12.0);
+        assertThat(prices.get(1L).getVersion()).isEqualTo(4L);
+    }
+
+    @Test
+    public void deletedSegmentsAreNotReplayed() throws IOException {
+        Path directory = this.folder.getRoot().toPath();
+        PriceJournal journal = new PriceJournal(directory, false);
+        journal.append(1L, 9.5, 3L);
+        journal.delete(journal.rotate());
+        journal.close();
+
+        PriceJournal reopened = new PriceJournal(directory, false);
+        Map<Long, PriceJournal.Entry> prices = reopened.replay();
+        reopened.close();
+        assertThat(prices).isEmpty();
+    }
+}